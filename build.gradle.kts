@@ -2,6 +2,7 @@ plugins {
     id("java")
     id("application")
     id("io.freefair.lombok") version "8.4"
+    id("me.champeau.jmh") version "0.7.2"
 }
 
 group = "be.floshie.neat"
@@ -28,8 +29,19 @@ dependencies {
 
     testImplementation(platform("org.junit:junit-bom:5.9.1"))
     testImplementation("org.junit.jupiter:junit-jupiter")
+    testImplementation(project(":inference"))
 }
 
 tasks.test {
     useJUnitPlatform()
+}
+
+// Benchmarks live in src/jmh/java, run them with ./gradlew jmh
+jmh {
+    jmhVersion.set("1.37")
+    fork.set(1)
+    warmupIterations.set(3)
+    iterations.set(5)
+    profilers.add("gc")
+    resultFormat.set("JSON")
 }
\ No newline at end of file
@@ -0,0 +1,20 @@
+// The inference runtime has no dependency, so it can be embedded in a serving path without the GA code
+plugins {
+    id("java-library")
+}
+
+group = "be.floshie.neat"
+version = "1.0"
+
+repositories {
+    mavenCentral()
+}
+
+dependencies {
+    testImplementation(platform("org.junit:junit-bom:5.9.1"))
+    testImplementation("org.junit.jupiter:junit-jupiter")
+}
+
+tasks.test {
+    useJUnitPlatform()
+}
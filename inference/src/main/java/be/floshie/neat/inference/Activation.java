@@ -0,0 +1,88 @@
+package be.floshie.neat.inference;
+
+/**
+ * The activation functions of an exported network. The constants are declared in the order of the activation
+ * functions of the evolution, since a genome records the ordinal of each one.
+ */
+public enum Activation {
+    RELU,
+    LINEAR,
+    TANH,
+    SIGMOID,
+    FAST_TANH,
+    FAST_SIGMOID;
+
+    private static final Activation[] VALUES = values();
+
+    /**
+     * Beyond this bound, the approximation of tanh is within its error of +/-1 and is clamped
+     */
+    private static final double FAST_TANH_BOUND = 4.97;
+
+    static Activation of(byte ordinal) {
+        if (ordinal < 0 || ordinal >= VALUES.length)
+            throw new IllegalArgumentException("Unknown activation function " + ordinal);
+
+        return VALUES[ordinal];
+    }
+
+    /**
+     * Apply the activation to a value
+     * @param x The weighted sum of the inputs of a neuron
+     * @return The activation value
+     */
+    public double apply(double x) {
+        return switch (this) {
+            case RELU -> Math.max(0, x);
+            case LINEAR -> x;
+            case TANH -> Math.tanh(x);
+            case SIGMOID -> 1 / (1 + Math.exp(-x));
+            case FAST_TANH -> fastTanh(x);
+            case FAST_SIGMOID -> 0.5 + 0.5 * fastTanh(0.5 * x);
+        };
+    }
+
+    /**
+     * Apply the activation to a range of values in place, with a loop specialized for the activation
+     * @param values The values
+     * @param from The index of the first value
+     * @param length The number of values
+     */
+    public void apply(double[] values, int from, int length) {
+        int to = from + length;
+        switch (this) {
+            case RELU -> {
+                for (int k = from; k < to; k++)
+                    values[k] = Math.max(0, values[k]);
+            }
+            case LINEAR -> {
+            }
+            case TANH -> {
+                for (int k = from; k < to; k++)
+                    values[k] = Math.tanh(values[k]);
+            }
+            case SIGMOID -> {
+                for (int k = from; k < to; k++)
+                    values[k] = 1 / (1 + Math.exp(-values[k]));
+            }
+            case FAST_TANH -> {
+                for (int k = from; k < to; k++)
+                    values[k] = fastTanh(values[k]);
+            }
+            case FAST_SIGMOID -> {
+                for (int k = from; k < to; k++)
+                    values[k] = 0.5 + 0.5 * fastTanh(0.5 * values[k]);
+            }
+        }
+    }
+
+    /**
+     * A [7/6] Pade approximant of tanh, clamped to its accurate range
+     */
+    private static double fastTanh(double x) {
+        x = Math.max(-FAST_TANH_BOUND, Math.min(FAST_TANH_BOUND, x));
+        double x2 = x * x;
+        return x * (135135 + x2 * (17325 + x2 * (378 + x2)))
+            / (135135 + x2 * (62370 + x2 * (3150 + x2 * 28)));
+    }
+}
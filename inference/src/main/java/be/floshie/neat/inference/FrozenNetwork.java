@@ -0,0 +1,310 @@
+package be.floshie.neat.inference;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * An exported network frozen into primitive arrays laid out in topological order: every neuron to evaluate owns a
+ * contiguous range of incoming axons and an activation. The network never changes once built, so a single instance
+ * can be shared by any number of threads.
+ * <p>
+ * The bias neuron (id 0) is preset to 1 and the inputs are bound to the neurons 1 to inputSize, every other neuron is
+ * computed from its incoming axons. The outputs are the neurons without outgoing axons, in genome order.
+ * <p>
+ * The evaluation methods taking a scratch buffer never allocate. The other ones use a buffer owned by the calling
+ * thread, allocated on its first call, so they do not allocate either once the thread is warm, except for batches
+ * too large for the buffer to be kept (see {@link #MAX_RETAINED_SCRATCH}).
+ */
+public final class FrozenNetwork {
+    /**
+     * The largest batch scratch buffer kept by a thread, 1 MiB. A larger batch gets a buffer of its own, collected
+     * once the batch is evaluated, so a single large batch does not stay pinned on the thread.
+     */
+    static final int MAX_RETAINED_SCRATCH = 1 << 17;
+
+    private final int neuronCount;
+    private final int biasSlot;
+    private final int[] inputSlots;
+
+    private final int[] evalSlots;
+    private final Activation[] activations;
+    private final int[] incomingOffsets;
+    private final int[] incomingSources;
+    private final double[] incomingWeights;
+
+    private final int[] outputSlots;
+
+    private final ThreadLocal<double[]> scratch;
+    private final ThreadLocal<double[]> batchScratch = new ThreadLocal<>();
+
+    /**
+     * Freeze a network from its genes. Neurons are referenced by their index in the given arrays.
+     * @param neuronIds The id of every neuron
+     * @param neuronActivations The activation of every neuron
+     * @param axonSources The index of the source neuron of every axon
+     * @param axonTargets The index of the target neuron of every axon
+     * @param axonWeights The effective weight of every axon, 0 for disabled axons
+     * @param inputSize The number of inputs
+     */
+    FrozenNetwork(
+        int[] neuronIds,
+        Activation[] neuronActivations,
+        int[] axonSources,
+        int[] axonTargets,
+        double[] axonWeights,
+        int inputSize
+    ) {
+        int n = neuronIds.length;
+        int m = axonSources.length;
+
+        // Kahn's algorithm over a CSR adjacency list of the outgoing axons
+        int[] outOffsets = new int[n + 1];
+        int[] remaining = new int[n];
+        for (int a = 0; a < m; a++) {
+            remaining[axonTargets[a]]++;
+            outOffsets[axonSources[a] + 1]++;
+        }
+        for (int i = 0; i < n; i++)
+            outOffsets[i + 1] += outOffsets[i];
+
+        int[] outTargets = new int[m];
+        int[] outFill = Arrays.copyOf(outOffsets, n);
+        for (int a = 0; a < m; a++)
+            outTargets[outFill[axonSources[a]]++] = axonTargets[a];
+
+        int[] order = new int[n];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++)
+            if (remaining[i] == 0)
+                order[tail++] = i;
+
+        while (head < tail) {
+            int neuron = order[head++];
+            for (int o = outOffsets[neuron]; o < outOffsets[neuron + 1]; o++)
+                if (--remaining[outTargets[o]] == 0)
+                    order[tail++] = outTargets[o];
+        }
+
+        if (tail != n)
+            throw new IllegalArgumentException("The network contains a cycle");
+
+        int[] slots = new int[n];
+        for (int s = 0; s < n; s++)
+            slots[order[s]] = s;
+
+        HashMap<Integer, Integer> idToIndex = new HashMap<>();
+        for (int i = 0; i < n; i++)
+            idToIndex.put(neuronIds[i], i);
+
+        boolean[] preset = new boolean[n];
+        Integer bias = idToIndex.get(0);
+        if (bias != null)
+            preset[bias] = true;
+
+        this.inputSlots = new int[inputSize];
+        for (int i = 0; i < inputSize; i++) {
+            Integer input = idToIndex.get(i + 1);
+            inputSlots[i] = input == null ? -1 : slots[input];
+            if (input != null)
+                preset[input] = true;
+        }
+
+        // Incoming axons grouped by target, keeping the genome order
+        int[] inOffsets = new int[n + 1];
+        for (int a = 0; a < m; a++)
+            inOffsets[axonTargets[a] + 1]++;
+        for (int i = 0; i < n; i++)
+            inOffsets[i + 1] += inOffsets[i];
+
+        int[] inAxons = new int[m];
+        int[] inFill = Arrays.copyOf(inOffsets, n);
+        for (int a = 0; a < m; a++)
+            inAxons[inFill[axonTargets[a]]++] = a;
+
+        int evalCount = 0;
+        for (int i = 0; i < n; i++)
+            if (!preset[i])
+                evalCount++;
+
+        this.evalSlots = new int[evalCount];
+        this.activations = new Activation[evalCount];
+        this.incomingOffsets = new int[evalCount + 1];
+        this.incomingSources = new int[m];
+        this.incomingWeights = new double[m];
+
+        int e = 0;
+        int edge = 0;
+        for (int s = 0; s < n; s++) {
+            int neuron = order[s];
+            if (preset[neuron])
+                continue;
+
+            evalSlots[e] = s;
+            activations[e] = neuronActivations[neuron];
+            for (int i = inOffsets[neuron]; i < inOffsets[neuron + 1]; i++) {
+                int axon = inAxons[i];
+                incomingSources[edge] = slots[axonSources[axon]];
+                incomingWeights[edge] = axonWeights[axon];
+                edge++;
+            }
+            incomingOffsets[++e] = edge;
+        }
+
+        int outputCount = 0;
+        for (int i = 0; i < n; i++)
+            if (outOffsets[i] == outOffsets[i + 1])
+                outputCount++;
+
+        this.outputSlots = new int[outputCount];
+        int o = 0;
+        for (int i = 0; i < n; i++)
+            if (outOffsets[i] == outOffsets[i + 1])
+                outputSlots[o++] = slots[i];
+
+        this.biasSlot = bias == null ? -1 : slots[bias];
+        this.neuronCount = n;
+        this.scratch = ThreadLocal.withInitial(() -> new double[neuronCount]);
+    }
+
+    /**
+     * @return The number of inputs of a sample
+     */
+    public int getInputSize() {
+        return inputSlots.length;
+    }
+
+    /**
+     * @return The number of outputs of a sample
+     */
+    public int getOutputSize() {
+        return outputSlots.length;
+    }
+
+    /**
+     * @return The number of neurons, the size of the scratch buffer of a single sample
+     */
+    public int getNeuronCount() {
+        return neuronCount;
+    }
+
+    /**
+     * Evaluate a sample, allocating the outputs
+     * @param inputs The input values
+     * @return The output values
+     */
+    public double[] evaluate(double[] inputs) {
+        double[] outputs = new double[outputSlots.length];
+        evaluate(inputs, outputs);
+        return outputs;
+    }
+
+    /**
+     * Evaluate a sample with the scratch buffer of the calling thread
+     * @param inputs The input values
+     * @param outputs The array receiving the output values
+     */
+    public void evaluate(double[] inputs, double[] outputs) {
+        evaluate(inputs, outputs, scratch.get());
+    }
+
+    /**
+     * Evaluate a sample with a caller supplied scratch buffer
+     * @param inputs The input values
+     * @param outputs The array receiving the output values
+     * @param scratch A buffer of at least {@link #getNeuronCount()} values
+     */
+    public void evaluate(double[] inputs, double[] outputs, double[] scratch) {
+        if (biasSlot >= 0)
+            scratch[biasSlot] = 1.0;
+
+        for (int i = 0; i < inputSlots.length; i++)
+            if (inputSlots[i] >= 0)
+                scratch[inputSlots[i]] = inputs[i];
+
+        for (int e = 0; e < evalSlots.length; e++) {
+            double sum = 0.0;
+            for (int i = incomingOffsets[e]; i < incomingOffsets[e + 1]; i++)
+                sum += scratch[incomingSources[i]] * incomingWeights[i];
+
+            scratch[evalSlots[e]] = activations[e].apply(sum);
+        }
+
+        for (int o = 0; o < outputSlots.length; o++)
+            outputs[o] = scratch[outputSlots[o]];
+    }
+
+    /**
+     * Evaluate a batch of samples with the scratch buffer of the calling thread, grown to the largest batch it has
+     * evaluated up to {@link #MAX_RETAINED_SCRATCH} values
+     * @param inputs The input values, row-major: the inputs of the k-th sample start at {@code k * getInputSize()}
+     * @param sampleCount The number of samples
+     * @param outputs The array receiving the output values, row-major: the outputs of the k-th sample start at
+     *                {@code k * getOutputSize()}
+     */
+    public void evaluateBatch(double[] inputs, int sampleCount, double[] outputs) {
+        evaluateBatch(inputs, sampleCount, outputs, batchScratch(neuronCount * sampleCount));
+    }
+
+    /**
+     * Get a batch scratch buffer for the calling thread
+     * @param size The number of values needed
+     * @return The buffer of the thread, or a new buffer if the size is above {@link #MAX_RETAINED_SCRATCH}
+     */
+    double[] batchScratch(int size) {
+        if (size > MAX_RETAINED_SCRATCH)
+            return new double[size];
+
+        double[] buffer = batchScratch.get();
+        if (buffer == null || buffer.length < size) {
+            buffer = new double[size];
+            batchScratch.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Evaluate a batch of samples in a single pass with a caller supplied scratch buffer. The values are laid out
+     * neuron-major, so each axon is a single multiply-add loop over the samples.
+     * @param inputs The input values, row-major: the inputs of the k-th sample start at {@code k * getInputSize()}
+     * @param sampleCount The number of samples
+     * @param outputs The array receiving the output values, row-major: the outputs of the k-th sample start at
+     *                {@code k * getOutputSize()}
+     * @param scratch A buffer of at least {@code getNeuronCount() * sampleCount} values
+     */
+    public void evaluateBatch(double[] inputs, int sampleCount, double[] outputs, double[] scratch) {
+        if (biasSlot >= 0)
+            Arrays.fill(scratch, biasSlot * sampleCount, (biasSlot + 1) * sampleCount, 1.0);
+
+        int inputSize = inputSlots.length;
+        for (int i = 0; i < inputSize; i++) {
+            if (inputSlots[i] < 0)
+                continue;
+
+            int row = inputSlots[i] * sampleCount;
+            for (int k = 0; k < sampleCount; k++)
+                scratch[row + k] = inputs[k * inputSize + i];
+        }
+
+        for (int e = 0; e < evalSlots.length; e++) {
+            int row = evalSlots[e] * sampleCount;
+            Arrays.fill(scratch, row, row + sampleCount, 0.0);
+
+            for (int i = incomingOffsets[e]; i < incomingOffsets[e + 1]; i++) {
+                int source = incomingSources[i] * sampleCount;
+                double weight = incomingWeights[i];
+                for (int k = 0; k < sampleCount; k++)
+                    scratch[row + k] += scratch[source + k] * weight;
+            }
+
+            activations[e].apply(scratch, row, sampleCount);
+        }
+
+        int outputSize = outputSlots.length;
+        for (int o = 0; o < outputSize; o++) {
+            int row = outputSlots[o] * sampleCount;
+            for (int k = 0; k < sampleCount; k++)
+                outputs[k * outputSize + o] = scratch[row + k];
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package be.floshie.neat.inference;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the networks of a genome stream exported by the evolution. The file is memory-mapped and every genome is
+ * decoded straight into the arrays of a {@link FrozenNetwork}, so loading only costs a pass over the bytes.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int magic, short version
+ * (int length,
+ *   int axonId, int neuronId,
+ *   int neuronCount, (int id, byte activation)*,
+ *   int axonCount, (int id, int innovation, int source, int target, double weight, byte enabled)*
+ * )*
+ * </pre>
+ */
+public final class NetworkLoader {
+    private static final int MAGIC = 0x4E474E53; // NGNS
+    private static final short VERSION = 1;
+
+    private NetworkLoader() {
+    }
+
+    /**
+     * Load every network of a file
+     * @param file The file, as written by the evolution
+     * @param inputSize The number of inputs of the networks
+     * @return The networks, in file order
+     * @throws IOException If the file cannot be read or is not a genome stream of a supported version
+     */
+    public static List<FrozenNetwork> load(Path file, int inputSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return load(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()), inputSize);
+        }
+    }
+
+    /**
+     * Load the first network of a file, typically the champion of a run
+     * @param file The file, as written by the evolution
+     * @param inputSize The number of inputs of the network
+     * @return The network
+     * @throws IOException If the file cannot be read or holds no network
+     */
+    public static FrozenNetwork loadFirst(Path file, int inputSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            readHeader(in);
+            if (!in.hasRemaining())
+                throw new IOException("No network in " + file);
+
+            in.getInt();
+            return readNetwork(in, inputSize);
+        }
+    }
+
+    /**
+     * Load every network of a buffer, from its position to its limit
+     * @param in The buffer
+     * @param inputSize The number of inputs of the networks
+     * @return The networks, in buffer order
+     * @throws IOException If the buffer is not a genome stream of a supported version
+     */
+    public static List<FrozenNetwork> load(ByteBuffer in, int inputSize) throws IOException {
+        readHeader(in);
+
+        List<FrozenNetwork> networks = new ArrayList<>();
+        while (in.hasRemaining()) {
+            int length = in.getInt();
+            int end = in.position() + length;
+            networks.add(readNetwork(in, inputSize));
+            in.position(end);
+        }
+        return networks;
+    }
+
+    private static void readHeader(ByteBuffer in) throws IOException {
+        if (in.remaining() < 6 || in.getInt() != MAGIC)
+            throw new IOException("Not a genome stream");
+
+        short version = in.getShort();
+        if (version != VERSION)
+            throw new IOException("Unsupported genome version " + version);
+    }
+
+    private static FrozenNetwork readNetwork(ByteBuffer in, int inputSize) {
+        // The id counters only matter to the evolution
+        in.getInt();
+        in.getInt();
+
+        int neuronCount = in.getInt();
+        int[] neuronIds = new int[neuronCount];
+        Activation[] activations = new Activation[neuronCount];
+        for (int i = 0; i < neuronCount; i++) {
+            neuronIds[i] = in.getInt();
+            activations[i] = Activation.of(in.get());
+        }
+
+        int axonCount = in.getInt();
+        int[] sources = new int[axonCount];
+        int[] targets = new int[axonCount];
+        double[] weights = new double[axonCount];
+        for (int a = 0; a < axonCount; a++) {
+            in.getInt();
+            in.getInt();
+            sources[a] = in.getInt();
+            targets[a] = in.getInt();
+            double weight = in.getDouble();
+            weights[a] = in.get() != 0 ? weight : 0;
+        }
+
+        return new FrozenNetwork(neuronIds, activations, sources, targets, weights, inputSize);
+    }
+}
@@ -0,0 +1,75 @@
+package be.floshie.neat.inference;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetworkLoaderTest {
+    /**
+     * A stream holding a single network: bias (0) and inputs (1, 2) linked to a linear output (3), the bias axon being
+     * disabled
+     */
+    private static ByteBuffer stream() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        buffer.putInt(0x4E474E53).putShort((short) 1);
+
+        int lengthPosition = buffer.position();
+        buffer.putInt(0);
+        int start = buffer.position();
+
+        buffer.putInt(3).putInt(4);
+        buffer.putInt(4);
+        for (int id = 0; id < 4; id++)
+            buffer.putInt(id).put((byte) Activation.LINEAR.ordinal());
+
+        buffer.putInt(3);
+        buffer.putInt(0).putInt(0).putInt(1).putInt(3).putDouble(.5).put((byte) 1);
+        buffer.putInt(1).putInt(1).putInt(2).putInt(3).putDouble(.25).put((byte) 1);
+        buffer.putInt(2).putInt(2).putInt(0).putInt(3).putDouble(10).put((byte) 0);
+
+        buffer.putInt(lengthPosition, buffer.position() - start);
+        return buffer.flip();
+    }
+
+    @Test
+    void givenAStreamOfOneNetwork_whenLoadingIt_thenTheNetworkIsEvaluated() throws IOException {
+        FrozenNetwork network = NetworkLoader.load(stream(), 2).get(0);
+
+        assertEquals(2, network.getInputSize());
+        assertEquals(1, network.getOutputSize());
+        assertArrayEquals(new double[]{2}, network.evaluate(new double[]{2, 4}));
+    }
+
+    @Test
+    void givenABatchOfSamples_whenEvaluatingThem_thenEverySampleIsEvaluated() throws IOException {
+        FrozenNetwork network = NetworkLoader.load(stream(), 2).get(0);
+        double[] outputs = new double[3];
+
+        network.evaluateBatch(new double[]{2, 4, 0, 0, -2, 4}, 3, outputs);
+
+        assertArrayEquals(new double[]{2, 0, 0}, outputs);
+    }
+
+    @Test
+    void givenABatchAboveTheRetainedScratch_whenAskingForScratch_thenTheThreadBufferIsNotGrownToIt()
+        throws IOException {
+        FrozenNetwork network = NetworkLoader.load(stream(), 2).get(0);
+        double[] retained = network.batchScratch(FrozenNetwork.MAX_RETAINED_SCRATCH);
+        double[] large = network.batchScratch(FrozenNetwork.MAX_RETAINED_SCRATCH + 1);
+
+        assertEquals(FrozenNetwork.MAX_RETAINED_SCRATCH + 1, large.length);
+        assertNotSame(large, network.batchScratch(FrozenNetwork.MAX_RETAINED_SCRATCH + 1));
+        assertSame(retained, network.batchScratch(FrozenNetwork.MAX_RETAINED_SCRATCH));
+    }
+
+    @Test
+    void givenAnUnknownVersion_whenLoadingIt_thenItFails() {
+        ByteBuffer buffer = stream();
+        buffer.putShort(4, (short) 99);
+
+        assertThrows(IOException.class, () -> NetworkLoader.load(buffer, 2));
+    }
+}
@@ -1,2 +1,3 @@
 rootProject.name = "neat"
 
+include("inference")
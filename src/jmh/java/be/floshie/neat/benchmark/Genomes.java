@@ -0,0 +1,52 @@
+package be.floshie.neat.benchmark;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.mutations.AxonMutation;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import io.vavr.collection.List;
+import lombok.val;
+
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic genomes for the benchmarks. A genome starts as a minimal XOR network and grows by splitting axons
+ * and adding new ones, like it would over a run.
+ */
+final class Genomes {
+    static final int INPUT_SIZE = 2;
+    static final int OUTPUT_SIZE = 1;
+
+    private static final NeuronMutation NEURON_MUTATION = new NeuronMutation(1);
+    private static final AxonMutation AXON_MUTATION = new AxonMutation(1, .5, -.5);
+
+    private Genomes() {
+    }
+
+    /**
+     * Create a genome with the given number of hidden neurons
+     * @param hiddenNeurons The number of hidden neurons
+     * @param random The random generator to draw from
+     * @return The genome
+     */
+    static AdvancedNeuralNetwork grow(int hiddenNeurons, SplittableRandom random) {
+        val network = AdvancedNeuralNetwork.minimal(INPUT_SIZE, OUTPUT_SIZE, random);
+        for (int i = 0; i < hiddenNeurons; i++) {
+            NEURON_MUTATION.apply(network, random);
+            AXON_MUTATION.apply(network, random);
+        }
+        return network;
+    }
+
+    /**
+     * Create a population of genomes of the same size
+     * @param size The number of individuals
+     * @param hiddenNeurons The number of hidden neurons of every genome
+     * @param seed The seed of the population
+     * @return The population
+     */
+    static List<Individual> population(int size, int hiddenNeurons, long seed) {
+        val random = new SplittableRandom(seed);
+        return List.range(0, size).map(i -> new Individual(grow(hiddenNeurons, random.split())));
+    }
+}
@@ -0,0 +1,82 @@
+package be.floshie.neat.benchmark;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.mutations.AxonConnectivityMutation;
+import be.floshie.neat.ga.mutations.AxonMutation;
+import be.floshie.neat.ga.mutations.MutationStrategy;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Every mutation strategy applied to a fresh copy of a genome. A mutation takes tens of nanoseconds, far too little
+ * for a per-invocation setup, so every iteration is a single shot of BATCH_SIZE mutations, each one on its own copy
+ * made in the iteration setup. Only the mutations are measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@Warmup(batchSize = MutationBenchmark.BATCH_SIZE)
+@Measurement(batchSize = MutationBenchmark.BATCH_SIZE)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class MutationBenchmark {
+    static final int BATCH_SIZE = 1_000;
+
+    @Param({"0", "10", "50"})
+    public int hiddenNeurons;
+
+    private final MutationStrategy axonConnectivityMutation = new AxonConnectivityMutation(1);
+    private final MutationStrategy axonMutation = new AxonMutation(1, .5, -.5);
+    private final MutationStrategy neuronMutation = new NeuronMutation(1);
+    private final MutationStrategy weightMutation = new WeightMutation(1, .5, -.5);
+
+    private final SplittableRandom random = new SplittableRandom(42);
+
+    private AdvancedNeuralNetwork genome;
+    private AdvancedNeuralNetwork[] networks;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUpGenome() {
+        genome = Genomes.grow(hiddenNeurons, new SplittableRandom(42));
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpNetworks() {
+        networks = new AdvancedNeuralNetwork[BATCH_SIZE];
+        for (int i = 0; i < BATCH_SIZE; i++)
+            networks[i] = genome.copy();
+        next = 0;
+    }
+
+    @Benchmark
+    public AdvancedNeuralNetwork axonConnectivityMutation() {
+        val network = networks[next++];
+        axonConnectivityMutation.apply(network, random);
+        return network;
+    }
+
+    @Benchmark
+    public AdvancedNeuralNetwork axonMutation() {
+        val network = networks[next++];
+        axonMutation.apply(network, random);
+        return network;
+    }
+
+    @Benchmark
+    public AdvancedNeuralNetwork neuronMutation() {
+        val network = networks[next++];
+        neuronMutation.apply(network, random);
+        return network;
+    }
+
+    @Benchmark
+    public AdvancedNeuralNetwork weightMutation() {
+        val network = networks[next++];
+        weightMutation.apply(network, random);
+        return network;
+    }
+}
@@ -0,0 +1,50 @@
+package be.floshie.neat.benchmark;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluation and copy of a single genome
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NetworkBenchmark {
+    private static final double[] XOR_INPUTS = {0, 0, 0, 1, 1, 0, 1, 1};
+
+    @Param({"0", "10", "50"})
+    public int hiddenNeurons;
+
+    private AdvancedNeuralNetwork network;
+    private double[] inputs;
+    private int sample;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        network = Genomes.grow(hiddenNeurons, new SplittableRandom(42));
+        inputs = new double[Genomes.INPUT_SIZE];
+    }
+
+    @Benchmark
+    public double[] feedForward() {
+        // Cycle through the XOR samples so the inputs are not constant folded
+        val offset = (sample++ & 3) * Genomes.INPUT_SIZE;
+        inputs[0] = XOR_INPUTS[offset];
+        inputs[1] = XOR_INPUTS[offset + 1];
+        return network.feedForward(inputs);
+    }
+
+    @Benchmark
+    public double[] feedForwardBatch() {
+        return network.feedForwardBatch(XOR_INPUTS, 4);
+    }
+
+    @Benchmark
+    public AdvancedNeuralNetwork copy() {
+        return network.copy();
+    }
+}
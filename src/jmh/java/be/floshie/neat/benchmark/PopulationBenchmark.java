@@ -0,0 +1,95 @@
+package be.floshie.neat.benchmark;
+
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.crossover.BasicCrossover;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.fitness.XORFitness;
+import be.floshie.neat.ga.mutations.AxonConnectivityMutation;
+import be.floshie.neat.ga.mutations.AxonMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.ga.reproduction.Reproduction;
+import be.floshie.neat.ga.selection.TournamentSelection;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import lombok.val;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The population wide stages of a generation: crossover, speciation, and a full generation step (fitness,
+ * speciation and reproduction), all on the calling thread.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PopulationBenchmark {
+    @Param({"50", "150", "500"})
+    public int populationSize;
+
+    @Param({"0", "10"})
+    public int hiddenNeurons;
+
+    private List<Individual> population;
+    private Map<Individual, Double> rawFitnesses;
+    private FitnessTable fitnesses;
+
+    private SpeciationAlgorithm speciation;
+    private XORFitness fitness;
+    private BasicCrossover crossover;
+    private Reproduction reproduction;
+
+    private final SplittableRandom random = new SplittableRandom(42);
+    private int generation;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        population = Genomes.population(populationSize, hiddenNeurons, 42);
+        rawFitnesses = population.zipWithIndex().toMap(it -> it._1(), it -> 1.0 / (1 + it._2()));
+        fitnesses = FitnessTable.of(population, rawFitnesses);
+
+        speciation = new SpeciationAlgorithm(1.0, 1.0, 0.4, 1.25);
+        fitness = new XORFitness(new SpeciationAlgorithm(1.0, 1.0, 0.4, 1.25));
+        crossover = new BasicCrossover(.8, new TournamentSelection(3));
+        reproduction = Reproduction.of(crossover, new MutationPipeline(
+            new AxonConnectivityMutation(.1),
+            new AxonMutation(.1, .5, -.5),
+            new NeuronMutation(.1),
+            new WeightMutation(.8, .5, -.5)
+        ), 1);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        reproduction.close();
+    }
+
+    @Benchmark
+    public Individual crossover() {
+        return crossover.crossover(fitnesses, random);
+    }
+
+    @Benchmark
+    public double getDistance() {
+        return speciation.getDistance(population.get(0), population.get(populationSize - 1));
+    }
+
+    @Benchmark
+    public Map<Individual, Double> adjustFitness() {
+        return speciation.adjustFitness(rawFitnesses);
+    }
+
+    @Benchmark
+    public List<Individual> generation() {
+        val table = FitnessTable.of(fitness, population);
+        val offspring = reproduction.breed(table, populationSize - 1, Reproduction.randomFor(42, generation++));
+        InnovationRegistry.global().nextGeneration();
+        table.invalidate();
+        return offspring;
+    }
+}
@@ -1,19 +1,47 @@
 package be.floshie.neat;
 
+import be.floshie.neat.ai.ActivationFunction;
 import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ai.io.GenomeWriter;
+import be.floshie.neat.checkpoint.Checkpoint;
+import be.floshie.neat.checkpoint.CheckpointCodec;
+import be.floshie.neat.checkpoint.CheckpointWriter;
+import be.floshie.neat.dataset.Dataset;
 import be.floshie.neat.ga.Individual;
 import be.floshie.neat.ga.crossover.BasicCrossover;
+import be.floshie.neat.ga.fitness.DatasetFitness;
+import be.floshie.neat.ga.fitness.FitnessCache;
+import be.floshie.neat.ga.fitness.FitnessEvaluator;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.fitness.Racing;
+import be.floshie.neat.ga.fitness.SupervisedFitness;
 import be.floshie.neat.ga.fitness.XORFitness;
 import be.floshie.neat.ga.mutations.AxonConnectivityMutation;
 import be.floshie.neat.ga.mutations.AxonMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
 import be.floshie.neat.ga.mutations.NeuronMutation;
 import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.ga.reproduction.Reproduction;
+import be.floshie.neat.ga.selection.ISelection;
+import be.floshie.neat.ga.selection.RankSelection;
+import be.floshie.neat.ga.selection.RouletteSelection;
+import be.floshie.neat.ga.selection.StochasticUniversalSampling;
 import be.floshie.neat.ga.selection.TournamentSelection;
 import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.ga.steadystate.SteadyStateEvolution;
+import be.floshie.neat.ga.termination.StopReason;
+import be.floshie.neat.ga.termination.Termination;
+import be.floshie.neat.ga.termination.TerminationCondition;
 import be.floshie.neat.gui.TestSketch;
-import io.vavr.Function1;
-import io.vavr.Tuple2;
+import be.floshie.neat.island.IslandLauncher;
+import be.floshie.neat.island.IslandNode;
+import be.floshie.neat.metrics.CsvMetricsSink;
+import be.floshie.neat.metrics.JsonLinesMetricsSink;
+import be.floshie.neat.metrics.Metrics;
+import be.floshie.neat.metrics.MetricsSink;
 import io.vavr.collection.List;
+import io.vavr.control.Option;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import picocli.CommandLine;
@@ -21,91 +49,391 @@ import processing.core.PApplet;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.SplittableRandom;
 import java.util.concurrent.Callable;
 import java.util.stream.Stream;
 
 @Slf4j
 public class NeatMain implements Callable<Integer> {
     public static void main(String[] args) throws Exception {
-        val neatMain = new NeatMain();
         val configFile = new File(NeatMain.class.getClassLoader().getResource("config.yml").getFile());
-        neatMain.parameters = NeatParameters.load(configFile);
+        val neatMain = new NeatMain(NeatParameters.load(configFile));
+        new CommandLine(neatMain).parseArgs(args);
+
+        if (neatMain.parameters.islands > 1 && neatMain.island == null) {
+            // Every island derives its seed from this one, so the whole model is reproduced from the logged seed
+            val seed = neatMain.seed != null ? neatMain.seed : neatMain.parameters.seed;
+            log.info("Seed: {}", seed);
+            val workerArgs = neatMain.seed != null
+                ? args
+                : Stream.concat(Stream.of(args), Stream.of("--seed", Long.toString(seed))).toArray(String[]::new);
+            System.exit(IslandLauncher.launch(NeatMain.class, neatMain.parameters.islands, workerArgs));
+        }
+
         val ret = neatMain.call();
         System.exit(ret);
     }
 
-    private NeatParameters parameters;
+    private final NeatParameters parameters;
+
+    @CommandLine.Option(names = "--resume", description = "Resume the run saved in a checkpoint file")
+    private Path resume;
+
+    @CommandLine.Option(names = "--island", description = "Run the island of this index of an island model")
+    private Integer island;
+
+    @CommandLine.Option(names = "--seed", description = "The seed of the run, instead of the configured one")
+    private Long seed;
 
     private List<Individual> individuals;
 
+    NeatMain(NeatParameters parameters) {
+        parameters.validate();
+        this.parameters = parameters;
+    }
+
     @Override
     public Integer call() throws Exception {
-        individuals = List.ofAll(Stream.generate(
-            () -> new Individual(AdvancedNeuralNetwork.minimal(parameters.inputSize, parameters.outputSize))
-        ).limit(parameters.populationSize));
-
-        Function1<Individual, Individual> mutate = getMutationFn();
-
-        val fitnessStrategy = new XORFitness(
-            new SpeciationAlgorithm(
-                parameters.c1,
-                parameters.c2,
-                parameters.c3,
-                parameters.dt
-            )
+        run();
+        return 0;
+    }
+
+    /**
+     * Run the evolution until a termination condition is met
+     * @return The reason the run stopped
+     */
+    StopReason run() throws Exception {
+        val innovationRegistry = InnovationRegistry.global();
+        innovationRegistry.reset();
+
+        if (resume != null && parameters.steadyState)
+            throw new IllegalArgumentException("The steady-state mode cannot resume a checkpoint");
+
+        if (seed != null)
+            parameters.seed = seed;
+
+        val checkpoint = resume == null ? null : CheckpointCodec.read(Path.of(islandFile(resume.toString())));
+        if (checkpoint != null) {
+            // The random generators of the next generations only depend on the seed
+            parameters.seed = checkpoint.getSeed();
+            innovationRegistry.restore(checkpoint.getRegistry());
+            individuals = checkpoint.getPopulation();
+            log.info("Resuming generation {} from {}", checkpoint.getGeneration(), resume);
+        } else {
+            if (island != null)
+                parameters.seed += island * 0x9E3779B97F4A7C15L;
+
+            val initialRandom = new SplittableRandom(parameters.seed);
+            individuals = List.ofAll(Stream.generate(
+                () -> new Individual(AdvancedNeuralNetwork.minimal(
+                    parameters.inputSize,
+                    parameters.outputSize,
+                    getActivationFunction(),
+                    initialRandom.split()
+                ))
+            ).limit(parameters.populationSize));
+        }
+        log.info("Seed: {}", parameters.seed);
+
+        val islandNode = island == null ? null : new IslandNode(
+            island,
+            parameters.islands,
+            parameters.islandBasePort,
+            parameters.migrationTopology
         );
+        // The genes of the initial networks have the same numbers on every island, the new ones never collide
+        if (island != null)
+            innovationRegistry.partition(island, parameters.islands);
 
-        val tournamentSelection = new TournamentSelection(fitnessStrategy, parameters.tournamentSize);
-        val crossoverStrategy = new BasicCrossover(parameters.crossoverRate, fitnessStrategy, tournamentSelection);
+        val mutation = getMutationPipeline();
 
-        int generation = 0;
+        val metrics = getMetrics();
+        val fitnessEvaluator = FitnessEvaluator.of(parameters.fitnessParallelism);
+        val fitnessCache = new FitnessCache(parameters.fitnessCacheSize);
+        val speciationAlgorithm = new SpeciationAlgorithm(
+            parameters.c1,
+            parameters.c2,
+            parameters.c3,
+            parameters.dt
+        );
+        if (checkpoint != null)
+            speciationAlgorithm.restore(checkpoint.getSpeciation());
+        // The threshold only depends on the previous generation, a resumed run restores it to evaluate the same way
+        val racing = parameters.racingRank > 0 ? new Racing(parameters.racingRank) : null;
+        if (racing != null && checkpoint != null)
+            racing.restore(checkpoint.getRacingThreshold());
+        val fitnessStrategy = getFitness(speciationAlgorithm, fitnessEvaluator, fitnessCache, metrics, racing);
 
-        while (true) {
-            val fitness = fitnessStrategy.getFitnesses(individuals);
-            val bestIndividual = fitness.maxBy(Tuple2::_2).get()._1();
+        val selection = metrics.timed(getSelection());
+        val crossoverStrategy = new BasicCrossover(parameters.crossoverRate, selection);
 
-            var newIndividuals = List.of(bestIndividual);
+        if (parameters.steadyState) {
+            StopReason stopReason;
+            try (SteadyStateEvolution evolution = new SteadyStateEvolution(
+                crossoverStrategy,
+                mutation,
+                individual -> fitnessCache.get(individual, fitnessStrategy::getRawFitness),
+                speciationAlgorithm,
+                metrics,
+                parameters.fitnessParallelism,
+                parameters.steadyStateRefreshInterval
+            )) {
+                stopReason = evolution.run(individuals, getTermination(), parameters.seed);
+                log.info("Stopped ({}): best fitness {}", stopReason, evolution.getBestFitness());
+                if (parameters.championFile != null)
+                    exportChampion(evolution.getBest());
+            }
+
+            if (islandNode != null)
+                islandNode.close();
+            fitnessEvaluator.close();
+            metrics.close();
+            return stopReason;
+        }
+
+        val reproduction = Reproduction.of(crossoverStrategy, mutation, parameters.reproductionParallelism, metrics);
+
+        val checkpointWriter = parameters.checkpointInterval > 0
+            ? new CheckpointWriter(Path.of(islandFile(parameters.checkpointFile)))
+            : null;
+
+        int generation = checkpoint == null ? 0 : checkpoint.getGeneration();
+        Individual champion = null;
+        val termination = getTermination();
+        if (checkpoint != null)
+            termination.getProgress().restore(checkpoint.getProgress());
+        Option<StopReason> stopReason = Option.none();
+
+        while (stopReason.isEmpty()) {
+            metrics.beginGeneration(generation);
+
+            // Computed once per generation, selection and crossover only look fitnesses up
+            val fitness = FitnessTable.of(fitnessStrategy, individuals);
+            // The shared fitnesses depend on the size of the species, the best individual is the best raw one
+            val rawFitness = fitnessStrategy.getRawFitnesses();
+            val bestIndividual = rawFitness.getBest();
+            val bestFitness = rawFitness.getFitnessOf(bestIndividual);
 
-            for (int i = 0; i < individuals.size() - 1; ++i) {
-                val offspring = crossoverStrategy.crossover(individuals);
-                val mutatedIndividual = mutate.apply(offspring);
-                newIndividuals = newIndividuals.append(mutatedIndividual);
+            val offspring = reproduction.breed(
+                fitness,
+                individuals.size() - 1,
+                Reproduction.randomFor(parameters.seed, generation)
+            );
+
+            val generationMetrics = metrics.endGeneration(
+                fitness.getIndividuals(),
+                speciationAlgorithm.getSpeciesCount(),
+                bestFitness
+            );
+
+            if (parameters.championFile != null && bestIndividual != champion) {
+                exportChampion(bestIndividual);
+                champion = bestIndividual;
             }
 
-            individuals = newIndividuals;
+            // The migrants received replace the last offspring
+            var migrants = List.<Individual>empty();
+            if (islandNode != null) {
+                if ((generation + 1) % parameters.migrationInterval == 0) {
+                    islandNode.send(generation, rawFitness.getIndividuals()
+                        .sortBy(it -> -rawFitness.getFitnessOf(it))
+                        .take(parameters.migrationSize));
+                }
+                migrants = islandNode.receive().take(offspring.size());
+            }
+
+            individuals = offspring.dropRight(migrants.size()).appendAll(migrants).prepend(bestIndividual);
+            innovationRegistry.nextGeneration();
+
+            // Updated before the checkpoint so a resumed run goes on with the progress of this generation
+            stopReason = termination.update(generationMetrics);
+
+            if (checkpointWriter != null && (generation + 1) % parameters.checkpointInterval == 0) {
+                checkpointWriter.submit(new Checkpoint(
+                    parameters.seed,
+                    generation + 1,
+                    racing == null ? Double.NEGATIVE_INFINITY : racing.getThreshold(),
+                    termination.getProgress().snapshot(),
+                    individuals,
+                    innovationRegistry.snapshot(),
+                    speciationAlgorithm.snapshot()
+                ));
+            }
 
             log.info("Generation: {}", generation);
-            log.info("Best fitness: {}", fitness.get(bestIndividual).get());
+            log.info("Best fitness: {}", bestFitness);
             log.info("Best individual: {}", bestIndividual);
-
-            log.info("Best individual's performance:\n\t0, 0:\t{}\n\t0, 1:\t{}\n\t1, 0:\t{}\n\t1, 1:\t{}",
-                bestIndividual.getAdvancedNeuralNetwork().feedForward(List.of(0.0, 0.0)).get(0),
-                bestIndividual.getAdvancedNeuralNetwork().feedForward(List.of(0.0, 1.0)).get(0),
-                bestIndividual.getAdvancedNeuralNetwork().feedForward(List.of(1.0, 0.0)).get(0),
-                bestIndividual.getAdvancedNeuralNetwork().feedForward(List.of(1.0, 1.0)).get(0)
+            log.info("Fitness cache: {} entries, {} hits, {} misses, {} evictions",
+                fitnessCache.size(), fitnessCache.getHits(), fitnessCache.getMisses(), fitnessCache.getEvictions());
+            log.info("Phases: fitness {} ms, speciation {} ms, crossover {} ms, mutation {} ms, "
+                    + "{} species, {} evaluations/s",
+                generationMetrics.getFitnessNanos() / 1_000_000,
+                generationMetrics.getSpeciationNanos() / 1_000_000,
+                generationMetrics.getCrossoverNanos() / 1_000_000,
+                generationMetrics.getMutationNanos() / 1_000_000,
+                generationMetrics.getSpeciesCount(),
+                Math.round(generationMetrics.getEvaluationsPerSecond())
             );
 
+            fitness.invalidate();
+
+            // The XOR samples only make sense for the XOR fitness, other datasets have their own input size
+            if (fitnessStrategy instanceof XORFitness) {
+                val performance = bestIndividual.getAdvancedNeuralNetwork()
+                    .feedForward(new double[][]{{0, 0}, {0, 1}, {1, 0}, {1, 1}});
+                log.info("Best individual's performance:\n\t0, 0:\t{}\n\t0, 1:\t{}\n\t1, 0:\t{}\n\t1, 1:\t{}",
+                    performance[0][0],
+                    performance[1][0],
+                    performance[2][0],
+                    performance[3][0]
+                );
+            }
+
             generation++;
         }
+
+        val progress = termination.getProgress();
+        log.info("Stopped after generation {} ({}): best fitness {}, {} evaluations ({} saved by racing) in {} s",
+            progress.getGeneration(),
+            stopReason.get(),
+            progress.getBestFitness(),
+            progress.getEvaluations(),
+            Math.round(progress.getSavedEvaluations()),
+            progress.getElapsedNanos() / 1_000_000_000
+        );
+
+        if (checkpointWriter != null)
+            checkpointWriter.close();
+        if (islandNode != null)
+            islandNode.close();
+        reproduction.close();
+        fitnessEvaluator.close();
+        metrics.close();
+
+        return stopReason.get();
+    }
+
+    /**
+     * @param file The name of a file written or read by the run
+     * @return The name of the file of this island, with the index of the island before the extension
+     */
+    private String islandFile(String file) {
+        if (island == null)
+            return file;
+
+        val dot = file.lastIndexOf('.');
+        if (dot <= Math.max(file.lastIndexOf('/'), file.lastIndexOf(File.separatorChar)) + 1)
+            return file + "." + island;
+
+        return file.substring(0, dot) + "." + island + file.substring(dot);
+    }
+
+    private Termination getTermination() {
+        var conditions = List.<TerminationCondition>empty();
+        if (parameters.targetFitness > 0)
+            conditions = conditions.append(TerminationCondition.targetFitness(parameters.targetFitness));
+        if (parameters.maxGenerations > 0)
+            conditions = conditions.append(TerminationCondition.maxGenerations(parameters.maxGenerations));
+        if (parameters.timeBudgetSeconds > 0)
+            conditions = conditions.append(TerminationCondition.timeBudget(
+                Duration.ofMillis(Math.round(parameters.timeBudgetSeconds * 1000))
+            ));
+        if (parameters.evaluationBudget > 0)
+            conditions = conditions.append(TerminationCondition.evaluationBudget(parameters.evaluationBudget));
+        if (parameters.stagnationGenerations > 0)
+            conditions = conditions.append(TerminationCondition.stagnation(parameters.stagnationGenerations));
+
+        return new Termination(conditions, parameters.stagnationThreshold);
+    }
+
+    /**
+     * Write the best individual to the champion file, replacing the previous champion at once
+     */
+    private void exportChampion(Individual champion) throws IOException {
+        val file = Path.of(islandFile(parameters.championFile));
+        val temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (GenomeWriter writer = GenomeWriter.open(temporary)) {
+            writer.write(champion.getAdvancedNeuralNetwork());
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Metrics getMetrics() throws IOException {
+        if (parameters.metricsFile == null)
+            return new Metrics();
+
+        val file = Path.of(islandFile(parameters.metricsFile));
+        MetricsSink sink = parameters.metricsFile.endsWith(".csv")
+            ? new CsvMetricsSink(file)
+            : new JsonLinesMetricsSink(file);
+        return new Metrics(sink);
+    }
+
+    private SupervisedFitness getFitness(
+        SpeciationAlgorithm speciationAlgorithm,
+        FitnessEvaluator evaluator,
+        FitnessCache cache,
+        Metrics metrics,
+        Racing racing
+    ) throws IOException {
+        if (parameters.datasetFile == null)
+            return new XORFitness(speciationAlgorithm, evaluator, cache, metrics);
+
+        val dataset = Dataset.open(Path.of(parameters.datasetFile));
+        if (dataset.getInputCount() != parameters.inputSize || dataset.getOutputCount() != parameters.outputSize)
+            throw new IllegalArgumentException("The dataset has " + dataset.getInputCount() + " inputs and "
+                + dataset.getOutputCount() + " outputs, expected " + parameters.inputSize + " and "
+                + parameters.outputSize);
+
+        log.info("Loaded {} samples from {}", dataset.getSampleCount(), parameters.datasetFile);
+        return new DatasetFitness(
+            dataset,
+            parameters.loss,
+            parameters.datasetChunkSize,
+            racing,
+            speciationAlgorithm,
+            evaluator,
+            cache,
+            metrics
+        );
+    }
+
+    private ISelection getSelection() {
+        return switch (parameters.selection) {
+            case TOURNAMENT -> new TournamentSelection(parameters.tournamentSize);
+            case ROULETTE -> new RouletteSelection();
+            case RANK -> new RankSelection(parameters.rankSelectionPressure);
+            case STOCHASTIC_UNIVERSAL_SAMPLING -> new StochasticUniversalSampling(parameters.seed);
+        };
+    }
+
+    private ActivationFunction getActivationFunction() {
+        return parameters.fastActivations ? ActivationFunction.SIGMOID.fast() : ActivationFunction.SIGMOID;
     }
 
-    private Function1<Individual, Individual> getMutationFn() {
+    private MutationPipeline getMutationPipeline() {
         val axonConnectivityMutation = new AxonConnectivityMutation(parameters.axonConnectivityMutationRate);
         val axonMutation = new AxonMutation(
             parameters.axonMutationRate,
             parameters.axonMutationRateMaxWeight,
             parameters.axonMutationRateMinWeight
         );
-        val neuronMutation = new NeuronMutation(parameters.neuronMutationRate);
+        val neuronMutation = new NeuronMutation(parameters.neuronMutationRate, getActivationFunction());
         val weightMutation = new WeightMutation(
             parameters.weightMutationRate,
             parameters.weightMutationNudgeMax,
             parameters.weightMutationNudgeMin
         );
 
-        return Function1.of(axonConnectivityMutation::mutate)
-            .andThen(axonMutation::mutate)
-            .andThen(neuronMutation::mutate)
-            .andThen(weightMutation::mutate);
+        return new MutationPipeline(
+            axonConnectivityMutation,
+            axonMutation,
+            neuronMutation,
+            weightMutation
+        );
     }
 }
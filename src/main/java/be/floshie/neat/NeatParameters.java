@@ -1,5 +1,8 @@
 package be.floshie.neat;
 
+import be.floshie.neat.ga.fitness.StandardLoss;
+import be.floshie.neat.ga.selection.SelectionType;
+import be.floshie.neat.island.MigrationTopology;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.dataformat.yaml.YAMLFactory;
 import lombok.RequiredArgsConstructor;
@@ -24,8 +27,165 @@ public class NeatParameters {
     public double axonConnectivityMutationRate = 0.1;
     public double crossoverRate = 0.2;
     public int tournamentSize = 33;
+
+    /**
+     * The selection of the parents
+     */
+    public SelectionType selection = SelectionType.TOURNAMENT;
+
+    /**
+     * The selection pressure of the rank selection, between 1 (uniform) and 2
+     */
+    public double rankSelectionPressure = 1.5;
+
+    /**
+     * The number of generations after which the run stops, 0 for no limit
+     */
     public int maxGenerations = 1000;
 
+    /**
+     * The raw fitness at which the run stops, 0 for no target
+     */
+    public double targetFitness = 0.99;
+
+    /**
+     * The wall-clock time after which the run stops, in seconds, 0 for no limit. A resumed run goes on with the time
+     * recorded in its checkpoint.
+     */
+    public double timeBudgetSeconds = 0;
+
+    /**
+     * The number of calls to the raw fitness function after which the run stops, 0 for no limit
+     */
+    public long evaluationBudget = 0;
+
+    /**
+     * The number of generations without improvement of the best fitness after which the run stops, 0 for no limit
+     */
+    public int stagnationGenerations = 0;
+
+    /**
+     * The smallest increase of the best fitness counted as an improvement
+     */
+    public double stagnationThreshold = 1e-6;
+
+    /**
+     * The number of threads computing the raw fitness of the population, 0 to use every available core
+     * and 1 to compute it on the main thread
+     */
+    public int fitnessParallelism = 0;
+
+    /**
+     * The maximum number of raw fitnesses kept in the fitness cache, 0 to disable the cache
+     */
+    public int fitnessCacheSize = 10_000;
+
+    /**
+     * The training set of the supervised fitness, in the columnar format of {@link be.floshie.neat.dataset.Dataset}.
+     * Its input and output counts must match inputSize and outputSize. The XOR samples are used when it is not set.
+     */
+    public String datasetFile = null;
+
+    /**
+     * The loss of the supervised fitness over the dataset
+     */
+    public StandardLoss loss = StandardLoss.MEAN_SQUARED_ERROR;
+
+    /**
+     * The number of samples of the dataset evaluated in a single batch
+     */
+    public int datasetChunkSize = 1024;
+
+    /**
+     * The rank k of the fitness an individual must be able to beat to be evaluated on every sample of the dataset,
+     * 0 to disable racing. The evaluation of an individual stops once its loss so far proves it cannot beat the k-th
+     * best raw fitness of the previous generation, and the individual gets that upper bound as raw fitness. The k
+     * best individuals keep their exact fitness and ranks, but the bounds compete with the exact fitnesses of the
+     * other individuals below the threshold: the selections drawing from the whole population, like the tournament
+     * or the roulette, may pick differently than without racing. It requires a datasetFile and cannot be combined
+     * with the steady-state mode.
+     */
+    public int racingRank = 0;
+
+    /**
+     * The number of threads breeding the offspring, 0 to use every available core and 1 to breed them on the main
+     * thread. The offspring do not depend on it.
+     */
+    public int reproductionParallelism = 0;
+
+    /**
+     * The seed of the run, a run is reproduced by reusing its seed. A new seed is picked for every run by default. With
+     * several islands, the launcher passes its seed to every worker with {@code --seed} and each island derives its
+     * own from it.
+     */
+    public long seed = System.nanoTime();
+
+    /**
+     * Whether the output and hidden neurons use the fast approximation of the sigmoid instead of the exact one
+     */
+    public boolean fastActivations = false;
+
+    /**
+     * The file receiving the metrics of every generation, as CSV if its name ends with .csv and as JSON lines
+     * otherwise. No file is written when it is not set, the metrics are still published as JFR events.
+     */
+    public String metricsFile = null;
+
+    /**
+     * The number of generations between two checkpoints, 0 to disable the checkpoints
+     */
+    public int checkpointInterval = 0;
+
+    /**
+     * The file receiving the checkpoints, each checkpoint replaces the previous one
+     */
+    public String checkpointFile = "checkpoint.neat";
+
+    /**
+     * The file receiving the best individual whenever it changes, to be loaded by the inference runtime. No file is
+     * written when it is not set.
+     */
+    public String championFile = null;
+
+    /**
+     * Whether the run evolves without generations: the offspring are bred, evaluated and inserted continuously by
+     * fitnessParallelism workers, the worst individuals being retired. It cannot be combined with islands nor with
+     * checkpoints.
+     */
+    public boolean steadyState = false;
+
+    /**
+     * The number of insertions between two speciations of the steady-state population, each one counting as a
+     * generation for the termination and the metrics
+     */
+    public int steadyStateRefreshInterval = 10;
+
+    /**
+     * The number of islands of the island model, each one evolving its own population of populationSize individuals
+     * in its own worker process. A single island runs in this process.
+     */
+    public int islands = 1;
+
+    /**
+     * The number of generations between two migrations
+     */
+    public int migrationInterval = 10;
+
+    /**
+     * The number of best individuals an island sends to each of its neighbours at every migration
+     */
+    public int migrationSize = 2;
+
+    /**
+     * Which islands receive the migrants of an island
+     */
+    public MigrationTopology migrationTopology = MigrationTopology.RING;
+
+    /**
+     * The loopback port of the island 0, the island i listening on islandBasePort + i
+     */
+    public int islandBasePort = 47100;
+
     /**
      * The coefficient for disjoint genes in the distance calculation
      */
@@ -46,6 +206,22 @@ public class NeatParameters {
      */
     public double dt = 0.1;
 
+    /**
+     * Check that the parameters can be combined
+     * @throws IllegalArgumentException If two parameters cannot be combined
+     */
+    public void validate() {
+        if (steadyState && islands > 1)
+            throw new IllegalArgumentException("The steady-state mode cannot run an island model, set islands to 1");
+        if (steadyState && checkpointInterval > 0)
+            throw new IllegalArgumentException("The steady-state mode cannot write checkpoints, "
+                + "set checkpointInterval to 0");
+        if (racingRank > 0 && steadyState)
+            throw new IllegalArgumentException("The steady-state mode cannot race evaluations, set racingRank to 0");
+        if (racingRank > 0 && datasetFile == null)
+            throw new IllegalArgumentException("Racing requires a datasetFile, set racingRank to 0");
+    }
+
     public static NeatParameters load(File configFile) throws IOException {
         val mapper = new ObjectMapper(new YAMLFactory());
         return mapper.readValue(configFile, NeatParameters.class);
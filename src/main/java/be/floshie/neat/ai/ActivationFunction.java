@@ -1,20 +1,160 @@
 package be.floshie.neat.ai;
 
 import io.vavr.Function1;
-import lombok.AllArgsConstructor;
-
-@AllArgsConstructor
-public enum ActivationFunction implements Function1<Double, Double> {
-    RELU(aDouble -> Math.max(0, aDouble)),
-    LINEAR(aDouble -> aDouble),
-    TANH(Math::tanh),
-    SIGMOID(aDouble -> 1 / (1 + Math.exp(-aDouble))),
+import lombok.val;
+
+import java.util.function.DoubleUnaryOperator;
+
+/**
+ * The activation functions known to the compiled networks. Each one has a primitive scalar form and a batch form
+ * working over a range of an array, whose loop is specialized per activation so the JIT can vectorize it.
+ * <p>
+ * The FAST_ variants trade accuracy for speed: they use a rational approximation of tanh instead of calling
+ * {@link Math#exp(double)} or {@link Math#tanh(double)}, with an absolute error below 1e-4.
+ */
+public enum ActivationFunction implements Function1<Double, Double>, DoubleUnaryOperator {
+    RELU {
+        @Override
+        public double applyAsDouble(double x) {
+            return relu(x);
+        }
+
+        @Override
+        public void applyBatch(double[] source, int sourceFrom, double[] destination, int destinationFrom, int length) {
+            for (int k = 0; k < length; k++)
+                destination[destinationFrom + k] = relu(source[sourceFrom + k]);
+        }
+    },
+    LINEAR {
+        @Override
+        public double applyAsDouble(double x) {
+            return x;
+        }
+
+        @Override
+        public void applyBatch(double[] source, int sourceFrom, double[] destination, int destinationFrom, int length) {
+            if (source != destination || sourceFrom != destinationFrom)
+                System.arraycopy(source, sourceFrom, destination, destinationFrom, length);
+        }
+    },
+    TANH {
+        @Override
+        public double applyAsDouble(double x) {
+            return Math.tanh(x);
+        }
+
+        @Override
+        public void applyBatch(double[] source, int sourceFrom, double[] destination, int destinationFrom, int length) {
+            for (int k = 0; k < length; k++)
+                destination[destinationFrom + k] = Math.tanh(source[sourceFrom + k]);
+        }
+    },
+    SIGMOID {
+        @Override
+        public double applyAsDouble(double x) {
+            return sigmoid(x);
+        }
+
+        @Override
+        public void applyBatch(double[] source, int sourceFrom, double[] destination, int destinationFrom, int length) {
+            for (int k = 0; k < length; k++)
+                destination[destinationFrom + k] = sigmoid(source[sourceFrom + k]);
+        }
+    },
+    FAST_TANH {
+        @Override
+        public double applyAsDouble(double x) {
+            return fastTanh(x);
+        }
+
+        @Override
+        public void applyBatch(double[] source, int sourceFrom, double[] destination, int destinationFrom, int length) {
+            for (int k = 0; k < length; k++)
+                destination[destinationFrom + k] = fastTanh(source[sourceFrom + k]);
+        }
+    },
+    FAST_SIGMOID {
+        @Override
+        public double applyAsDouble(double x) {
+            return fastSigmoid(x);
+        }
+
+        @Override
+        public void applyBatch(double[] source, int sourceFrom, double[] destination, int destinationFrom, int length) {
+            for (int k = 0; k < length; k++)
+                destination[destinationFrom + k] = fastSigmoid(source[sourceFrom + k]);
+        }
+    },
     ;
 
-    private final Function1<Double, Double> function;
+    /**
+     * Beyond this bound, the approximation of tanh is within its error of +/-1 and is clamped
+     */
+    private static final double FAST_TANH_BOUND = 4.97;
+
+    /**
+     * Apply the activation to a value, without boxing
+     * @param x The weighted sum of the inputs of a neuron
+     * @return The activation value
+     */
+    @Override
+    public abstract double applyAsDouble(double x);
+
+    /**
+     * Apply the activation to a range of values. The source and the destination may be the same array to apply the
+     * activation in place.
+     * @param source The values to activate
+     * @param sourceFrom The index of the first value to activate
+     * @param destination The array receiving the activation values
+     * @param destinationFrom The index receiving the first activation value
+     * @param length The number of values
+     */
+    public abstract void applyBatch(
+        double[] source,
+        int sourceFrom,
+        double[] destination,
+        int destinationFrom,
+        int length
+    );
 
     @Override
     public Double apply(Double aDouble) {
-        return function.apply(aDouble);
+        return applyAsDouble(aDouble);
+    }
+
+    /**
+     * @return The fast approximation of this activation, or this activation if it has none
+     */
+    public ActivationFunction fast() {
+        return switch (this) {
+            case TANH -> FAST_TANH;
+            case SIGMOID -> FAST_SIGMOID;
+            default -> this;
+        };
+    }
+
+    static double relu(double x) {
+        return Math.max(0, x);
+    }
+
+    static double sigmoid(double x) {
+        return 1 / (1 + Math.exp(-x));
+    }
+
+    /**
+     * A [7/6] Pade approximant of tanh, clamped to its accurate range
+     */
+    static double fastTanh(double x) {
+        x = Math.max(-FAST_TANH_BOUND, Math.min(FAST_TANH_BOUND, x));
+        val x2 = x * x;
+        return x * (135135 + x2 * (17325 + x2 * (378 + x2)))
+            / (135135 + x2 * (62370 + x2 * (3150 + x2 * 28)));
+    }
+
+    /**
+     * The sigmoid written as a scaled tanh: sigmoid(x) = (1 + tanh(x / 2)) / 2
+     */
+    static double fastSigmoid(double x) {
+        return 0.5 + 0.5 * fastTanh(0.5 * x);
     }
 }
@@ -1,30 +1,70 @@
 package be.floshie.neat.ai;
 
 import be.floshie.neat.ai.graph.Axon;
+import be.floshie.neat.ai.graph.InnovationRegistry;
 import be.floshie.neat.ai.graph.NeuralGraph;
 import be.floshie.neat.ai.graph.Neuron;
-import io.vavr.collection.HashMap;
+import io.vavr.Function1;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
 import lombok.*;
 import org.jgrapht.graph.DirectedAcyclicGraph;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
 
 /**
  * An advanced neural network implementation using JGraphT's {@link org.jgrapht.graph.DirectedAcyclicGraph}.
  * This specific graph implementation is used because it allows for a topological order iterator
  * that is refreshed every time an edge is modified.
+ * <p>
+ * The feed forward methods only read the network and evaluate its compiled form with a per-thread scratch buffer, so
+ * a network that is no longer modified, such as a champion, can be evaluated from several threads at once.
  */
 public class AdvancedNeuralNetwork implements NeuralGraph {
     @lombok.experimental.Delegate(types = NeuralGraph.class)
     private final DirectedAcyclicGraph<Neuron, Axon> graph;
 
-    private Map<Integer, Double> activationValues;
+    /**
+     * The compiled form of the network, built lazily and dropped whenever the network changes. The lazy caches are
+     * volatile so a form built by one evaluating thread is safely seen by the others, two threads racing to build one
+     * build equal forms.
+     */
+    private volatile CompiledNeuralNetwork compiled;
+
+    /**
+     * The structural signature of the network, built lazily and dropped whenever the network changes
+     */
+    private volatile GenomeSignature signature;
 
+    /**
+     * The neurons in topological order, built lazily and dropped whenever the network changes
+     */
+    private volatile Neuron[] topologicalOrder;
+
+    /**
+     * The axons of the network as genes sorted by innovation number, kept in sync by the graph mutators
+     */
+    @Getter
+    private final GeneArray genes;
+
+    /**
+     * The id of the next axon added to the network
+     */
+    @Getter
     @Setter
     private int axonId = 0;
 
+    /**
+     * The id of the next neuron added to the network without an explicit id
+     */
+    @Getter
     @Setter
     private int neuronId = 0;
 
@@ -34,20 +74,33 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
      */
     private AdvancedNeuralNetwork(
         DirectedAcyclicGraph<Neuron, Axon> graph
+    ) {
+        this(graph, new GeneArray());
+
+        for (val axon : graph.edgeSet())
+            genes.put(axon, graph.getEdgeWeight(axon));
+    }
+
+    private AdvancedNeuralNetwork(
+        DirectedAcyclicGraph<Neuron, Axon> graph,
+        GeneArray genes
     ) {
         this.graph = graph;
-        this.activationValues = HashMap.empty();
+        this.genes = genes;
     }
 
     /**
-     * Add an axon to the neural network with a weight. The axon will be enabled by default.
+     * Add an axon to the neural network with a weight. The axon will be enabled by default. Its innovation number is
+     * given by the {@link InnovationRegistry}, so the same connection made in the same generation by another network
+     * gets the same innovation number.
      * @param source The source neuron
      * @param target The target neuron
      * @param weight The weight of the axon
      * @return The axon that was added
      */
     public Axon addAxon(Neuron source, Neuron target, double weight) {
-        val axon = new Axon(axonId++);
+        val innovation = InnovationRegistry.global().innovationFor(source.getId(), target.getId());
+        val axon = new Axon(axonId++, innovation, true);
         addEdge(source, target, axon);
         setEdgeWeight(axon, weight);
         return axon;
@@ -64,10 +117,37 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
         return neuron;
     }
 
+    /**
+     * Add a neuron with a given id to the neural network, typically an id given by the {@link InnovationRegistry}.
+     * @param id The id of the neuron
+     * @param activationFunction The activation function of the neuron
+     * @return The neuron that was added
+     */
+    public Neuron addNeuron(int id, ActivationFunction activationFunction) {
+        val neuron = new Neuron(id, activationFunction);
+        neuronId = Math.max(neuronId, id + 1);
+        addVertex(neuron);
+        return neuron;
+    }
+
+    /**
+     * Check whether the network has a neuron with the given id
+     * @param id The id of the neuron
+     * @return True if a neuron of the network has this id
+     */
+    public boolean containsNeuron(int id) {
+        for (val neuron : vertexSet())
+            if (neuron.getId() == id)
+                return true;
+
+        return false;
+    }
+
     @Override
     public void setEdgeWeight(Axon axon, double weight) {
-        axon.setWeight(weight);
+        invalidate();
         graph.setEdgeWeight(axon, weight);
+        genes.setWeight(axon.getInnovation(), weight);
     }
 
     /**
@@ -90,15 +170,17 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
     }
 
     /**
-     * Get the axon with the given innovation number
+     * Get the axon with the given innovation number, looked up in the genes sorted by innovation number
      * @param innovationNumber The innovation number of the axon
      * @return The axon with the given innovation number
      */
     @SneakyThrows
     public Axon getEdge(int innovationNumber) {
-        return List.ofAll(edgeSet())
-            .find(axon -> axon.getInnovation() == innovationNumber)
-            .getOrElseThrow(getError(ErrorType.AXON_NOT_FOUND));
+        val index = genes.indexOf(innovationNumber);
+        if (index < 0)
+            throw getError(ErrorType.AXON_NOT_FOUND).get();
+
+        return genes.axon(index);
     }
 
     /**
@@ -108,9 +190,81 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
      * @return The output values
      */
     public List<Double> feedForward(List<Double> inputValues) {
-        return this.feedForward(
-            List.range(0, inputValues.size())
-                .toMap(i -> Map.entry(i + 1, inputValues.get(i))));
+        val outputs = feedForward(inputValues.toJavaStream().mapToDouble(Double::doubleValue).toArray());
+        return List.ofAll(outputs);
+    }
+
+    /**
+     * Feed forward the input values through the compiled form of the neural network. The input values are linked to
+     * the input neurons by their index in the array.
+     * @param inputValues The input values
+     * @return The output values
+     */
+    public double[] feedForward(double[] inputValues) {
+        val network = compile(inputValues.length);
+        val outputs = new double[network.getOutputSize()];
+        network.evaluate(inputValues, outputs);
+        return outputs;
+    }
+
+    /**
+     * Feed forward the input values through the compiled form of the neural network, without allocating once the
+     * network is compiled
+     * @param inputValues The input values, linked to the input neurons by their index in the array
+     * @param outputs The array receiving the output values
+     */
+    public void feedForward(double[] inputValues, double[] outputs) {
+        compile(inputValues.length).evaluate(inputValues, outputs);
+    }
+
+    /**
+     * Feed forward the input values through the compiled form of the neural network with a caller supplied scratch
+     * buffer, without allocating once the network is compiled
+     * @param inputValues The input values, linked to the input neurons by their index in the array
+     * @param outputs The array receiving the output values
+     * @param scratch A buffer of at least one value per neuron
+     */
+    public void feedForward(double[] inputValues, double[] outputs, double[] scratch) {
+        compile(inputValues.length).evaluate(inputValues, outputs, scratch);
+    }
+
+    /**
+     * Feed a batch of samples forward through the compiled form of the neural network in a single pass. The inputs
+     * of every sample are linked to the input neurons by their index in the sample.
+     * @param samples The input values of every sample, all samples having the same size
+     * @return The output values of every sample, in sample order
+     */
+    public double[][] feedForward(double[][] samples) {
+        val sampleCount = samples.length;
+        val inputSize = sampleCount == 0 ? 0 : samples[0].length;
+
+        val inputs = new double[sampleCount * inputSize];
+        for (int k = 0; k < sampleCount; k++)
+            System.arraycopy(samples[k], 0, inputs, k * inputSize, inputSize);
+
+        val outputs = feedForwardBatch(inputs, sampleCount);
+        val outputSize = sampleCount == 0 ? 0 : outputs.length / sampleCount;
+
+        val results = new double[sampleCount][];
+        for (int k = 0; k < sampleCount; k++)
+            results[k] = Arrays.copyOfRange(outputs, k * outputSize, (k + 1) * outputSize);
+        return results;
+    }
+
+    /**
+     * Feed a batch of samples forward through the compiled form of the neural network in a single pass
+     * @param inputs The input values of every sample, row-major
+     * @param sampleCount The number of samples, the input size being {@code inputs.length / sampleCount}
+     * @return The output values of every sample, row-major
+     */
+    public double[] feedForwardBatch(double[] inputs, int sampleCount) {
+        if (sampleCount == 0)
+            return new double[0];
+
+        val network = compile(inputs.length / sampleCount);
+        val outputs = new double[sampleCount * network.getOutputSize()];
+        network.evaluateBatch(inputs, sampleCount, outputs);
+        return outputs;
     }
 
     /**
@@ -119,59 +273,213 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
      * @param inputValues The input values with the neuron id as key and the value as value
      * @return The output values
      */
-    @SneakyThrows
     protected List<Double> feedForward(Map<Integer, Double> inputValues) {
-        val inputIterator = graph.iterator();
+        val inputIds = inputValues.keySet().toJavaStream().mapToInt(Integer::intValue).toArray();
+        val inputs = new double[inputIds.length];
+        for (int i = 0; i < inputIds.length; i++)
+            inputs[i] = inputValues.get(inputIds[i]).get();
+
+        val network = compile(inputIds);
+        val outputs = new double[network.getOutputSize()];
+        network.evaluate(inputs, outputs);
+        return List.ofAll(outputs);
+    }
+
+    /**
+     * Get the compiled form of the neural network, with the inputs linked to the neurons 1 to inputSize (the neuron 0
+     * being the bias). The compiled form is cached until the structure or a weight of the network changes.
+     * @param inputSize The number of inputs
+     * @return The compiled neural network
+     */
+    public CompiledNeuralNetwork compile(int inputSize) {
+        val current = compiled;
+        if (current != null && current.hasLeadingInputs(inputSize))
+            return current;
 
-        activationValues = activationValues.put(0, 1.0); // Bias neuron
-        // Put the input values in the activation values
-        for (val input : inputValues) {
-            activationValues = activationValues.put(input._1(), input._2());
+        return compile(IntStream.rangeClosed(1, inputSize).toArray());
+    }
+
+    /**
+     * Get the compiled form of the neural network, with the inputs linked to the given neurons. The compiled form is
+     * cached until the structure or a weight of the network changes.
+     * @param inputIds The ids of the input neurons, in input order
+     * @return The compiled neural network
+     */
+    @SuppressWarnings("unchecked")
+    public CompiledNeuralNetwork compile(int[] inputIds) {
+        val current = compiled;
+        if (current != null && current.hasInputIds(inputIds))
+            return current;
+
+        val neurons = vertexSet();
+        val axons = edgeSet();
+
+        val neuronIndices = new HashMap<Neuron, Integer>();
+        val neuronIds = new int[neurons.size()];
+        val activations = (Function1<Double, Double>[]) new Function1[neurons.size()];
+        for (val neuron : neurons) {
+            val index = neuronIndices.size();
+            neuronIndices.put(neuron, index);
+            neuronIds[index] = neuron.getId();
+            activations[index] = neuron.getActivationFunction();
         }
 
-        while (inputIterator.hasNext()) {
-            val neuron = inputIterator.next();
-
-            if (activationValues.containsKey(neuron.getId()))
-                continue;
-
-            // Get all incoming activations
-            val incomingActivation = List.ofAll(incomingEdgesOf(neuron))
-                .map(axon -> {
-                    val source = getEdgeSource(axon);
-                    val incomingValue = activationValues.get(source.getId());
-                    val axonWeight = getEdgeWeight(axon);
-                    return incomingValue.get() * (axonWeight == Double.MIN_VALUE ? 0 : axonWeight);
-                })
-                .sum()
-                .doubleValue();
-
-            val activatedValue = neuron.getActivationFunction().apply(incomingActivation);
-            activationValues = activationValues.put(neuron.getId(), activatedValue);
+        val sources = new int[axons.size()];
+        val targets = new int[axons.size()];
+        val weights = new double[axons.size()];
+        int a = 0;
+        for (val axon : axons) {
+            val weight = getEdgeWeight(axon);
+            sources[a] = neuronIndices.get(getEdgeSource(axon));
+            targets[a] = neuronIndices.get(getEdgeTarget(axon));
+            weights[a] = weight == Double.MIN_VALUE ? 0 : weight;
+            a++;
         }
 
-        // Get output neurons
-        val outputNeurons = List.ofAll(vertexSet())
-            .filter(neuron -> outDegreeOf(neuron) == 0);
-
-        val output = outputNeurons.map(neuron -> {
-            try {
-                return activationValues.get(neuron.getId())
-                    .getOrElseThrow(getError(ErrorType.BAD_INPUT));
-            } catch (Throwable e) {
-                throw new RuntimeException(e);
-            }
-        });
+        val network = CompiledNeuralNetwork.compile(neuronIds, activations, sources, targets, weights, inputIds);
+        compiled = network;
+        return network;
+    }
+
+    /**
+     * Get the structural signature of the network. It is cached until the structure or a weight of the network
+     * changes.
+     * @return The signature of the network
+     */
+    public GenomeSignature getSignature() {
+        var current = signature;
+        if (current == null) {
+            current = GenomeSignature.of(this);
+            signature = current;
+        }
+
+        return current;
+    }
+
+    /**
+     * Get the neurons in topological order: every axon goes from a neuron to a later one, so an axon from a neuron to
+     * a later one can never create a cycle. The order is maintained incrementally by the graph and cached until the
+     * network changes, the returned array must not be modified.
+     * @return The neurons in topological order
+     */
+    public Neuron[] topologicalOrder() {
+        var order = topologicalOrder;
+        if (order == null) {
+            order = new Neuron[graph.vertexSet().size()];
+            int i = 0;
+            for (val neuron : graph)
+                order[i++] = neuron;
+            topologicalOrder = order;
+        }
 
-        activationValues = HashMap.empty();
-        return output;
+        return order;
+    }
+
+    /**
+     * Drop the compiled form, the signature and the topological order of the network, they will be rebuilt when
+     * needed
+     */
+    private void invalidate() {
+        compiled = null;
+        signature = null;
+        topologicalOrder = null;
+    }
+
+    @Override
+    public boolean addVertex(Neuron neuron) {
+        invalidate();
+        return graph.addVertex(neuron);
+    }
+
+    @Override
+    public boolean removeVertex(Neuron neuron) {
+        if (!graph.containsVertex(neuron))
+            return false;
+
+        invalidate();
+        for (val axon : graph.edgesOf(neuron))
+            genes.remove(axon.getInnovation());
+
+        return graph.removeVertex(neuron);
+    }
+
+    @Override
+    public boolean removeAllVertices(Collection<? extends Neuron> neurons) {
+        boolean modified = false;
+        for (val neuron : List.ofAll(neurons))
+            modified |= removeVertex(neuron);
+
+        return modified;
+    }
+
+    @Override
+    public Axon addEdge(Neuron source, Neuron target) {
+        invalidate();
+        val axon = graph.addEdge(source, target);
+        if (axon != null)
+            genes.put(axon, graph.getEdgeWeight(axon));
+
+        return axon;
+    }
+
+    @Override
+    public boolean addEdge(Neuron source, Neuron target, Axon axon) {
+        invalidate();
+        val added = graph.addEdge(source, target, axon);
+        if (added)
+            genes.put(axon, graph.getEdgeWeight(axon));
+
+        return added;
+    }
+
+    @Override
+    public boolean removeEdge(Axon axon) {
+        invalidate();
+        val removed = graph.removeEdge(axon);
+        if (removed)
+            genes.remove(axon.getInnovation());
+
+        return removed;
+    }
+
+    @Override
+    public Axon removeEdge(Neuron source, Neuron target) {
+        invalidate();
+        val axon = graph.removeEdge(source, target);
+        if (axon != null)
+            genes.remove(axon.getInnovation());
+
+        return axon;
+    }
+
+    @Override
+    public boolean removeAllEdges(Collection<? extends Axon> axons) {
+        boolean modified = false;
+        for (val axon : List.ofAll(axons))
+            modified |= removeEdge(axon);
+
+        return modified;
+    }
+
+    @Override
+    public Set<Axon> removeAllEdges(Neuron source, Neuron target) {
+        invalidate();
+        val axons = graph.removeAllEdges(source, target);
+        if (axons != null)
+            axons.forEach(axon -> genes.remove(axon.getInnovation()));
+
+        return axons;
+    }
+
+    @Override
+    public void setEdgeWeight(Neuron source, Neuron target, double weight) {
+        setEdgeWeight(getEdge(source, target), weight);
     }
 
     /**
      * Enum for the different types of errors that can occur
      */
     private enum ErrorType {
-        BAD_INPUT,
         AXON_NOT_FOUND
     }
 
@@ -182,8 +490,6 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
      */
     private static Supplier<Throwable> getError(ErrorType errorType) {
         return () -> switch (errorType) {
-            case BAD_INPUT ->
-                new IllegalArgumentException("Input values are not valid. Verify that the input values are valid and correctly linked to an input.");
             case AXON_NOT_FOUND -> new IllegalArgumentException("Axon not found");
         };
     }
@@ -197,6 +503,34 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
      * @return The minimal neural network
      */
     public static AdvancedNeuralNetwork minimal(int input, int output) {
+        return minimal(input, output, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Create a minimal neural network whose initial weights are drawn from the given random generator
+     * @param input The input size
+     * @param output The output size
+     * @param random The random generator to draw the weights from
+     * @return The minimal neural network
+     */
+    public static AdvancedNeuralNetwork minimal(int input, int output, RandomGenerator random) {
+        return minimal(input, output, ActivationFunction.SIGMOID, random);
+    }
+
+    /**
+     * Create a minimal neural network with the given activation function on its output neurons
+     * @param input The input size
+     * @param output The output size
+     * @param outputActivation The activation function of the output neurons
+     * @param random The random generator to draw the weights from
+     * @return The minimal neural network
+     */
+    public static AdvancedNeuralNetwork minimal(
+        int input,
+        int output,
+        ActivationFunction outputActivation,
+        RandomGenerator random
+    ) {
         val graph = new DirectedAcyclicGraph<Neuron, Axon>(
             null,
             () -> new Axon(-1),
@@ -209,14 +543,17 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
             .map(i -> ann.addNeuron(ActivationFunction.LINEAR));
 
         val outputNeurons = List.range(input, input + output)
-            .map(i -> ann.addNeuron(ActivationFunction.SIGMOID));
+            .map(i -> ann.addNeuron(outputActivation));
+
+        // Neurons created by later mutations must not reuse the ids of the initial neurons
+        InnovationRegistry.global().reserveNeuronIds(input + 2 + output);
 
         inputNeurons.forEach(graph::addVertex);
         outputNeurons.forEach(graph::addVertex);
 
         inputNeurons.forEach(inputNeuron -> {
             outputNeurons.forEach(outputNeuron -> {
-                ann.addAxon(inputNeuron, outputNeuron, Math.random() * 2 - 1);
+                ann.addAxon(inputNeuron, outputNeuron, random.nextDouble() * 2 - 1);
             });
         });
 
@@ -249,25 +586,29 @@ public class AdvancedNeuralNetwork implements NeuralGraph {
     }
 
     /**
-     * Create a deep copy of the neural network
+     * Create a copy of the neural network. The graph structure is copied while the neurons and axons, which are
+     * immutable, are shared with the original network: the weights are kept in the graph and the genes of each copy.
+     * The genes are copied as a whole instead of being inserted one axon at a time.
      *
-     * @return The deep copy of the neural network
+     * @return The copy of the neural network
      */
     public AdvancedNeuralNetwork copy() {
-        val newInstance = AdvancedNeuralNetwork.empty();
+        val newGraph = new DirectedAcyclicGraph<Neuron, Axon>(
+            null,
+            () -> new Axon(-1), // should never be called
+            true
+        );
 
         for (val neuron : vertexSet()) {
-            newInstance.addVertex(neuron);
+            newGraph.addVertex(neuron);
         }
 
         for (val axon : edgeSet()) {
-            val source = getEdgeSource(axon);
-            val target = getEdgeTarget(axon);
-            val weight = getEdgeWeight(axon);
-            newInstance.addEdge(source, target, axon);
-            newInstance.setEdgeWeight(axon, weight);
+            newGraph.addEdge(getEdgeSource(axon), getEdgeTarget(axon), axon);
+            newGraph.setEdgeWeight(axon, getEnabledEdgeWeight(axon));
         }
 
+        val newInstance = new AdvancedNeuralNetwork(newGraph, genes.copy());
         newInstance.axonId = axonId;
         newInstance.neuronId = neuronId;
 
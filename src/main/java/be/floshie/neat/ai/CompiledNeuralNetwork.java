@@ -0,0 +1,427 @@
+package be.floshie.neat.ai;
+
+import io.vavr.Function1;
+import lombok.Getter;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * A compiled form of a neural network. The graph is flattened once into primitive arrays laid out in topological
+ * order: every neuron to evaluate owns a contiguous range of incoming axons (CSR layout) and an activation opcode.
+ * Evaluating the network is then a single pass over these arrays, without any allocation.
+ * <p>
+ * Like the graph form, the bias neuron (id 0) is preset to 1 and the input neurons are preset to the input values,
+ * every other neuron is computed from its incoming axons. The outputs are the neurons without outgoing axons.
+ * <p>
+ * A compiled network never changes once built, and keeps the activation values in a scratch buffer supplied by the
+ * caller or owned by the calling thread. It can therefore be evaluated from several threads at once, without locking.
+ */
+public final class CompiledNeuralNetwork {
+    @Getter
+    private final int neuronCount;
+
+    private final int[] inputIds;
+    private final int biasSlot;
+    private final int[] inputSlots;
+
+    private final int[] evalSlots;
+    private final ActivationFunction[] opcodes;
+    private final Function1<Double, Double>[] customActivations;
+
+    private final int[] incomingOffsets;
+    private final int[] incomingSources;
+    private final double[] incomingWeights;
+
+    private final int[] outputSlots;
+
+    /**
+     * The scratch buffer of every thread, shared by all the compiled networks and grown to the largest one a thread
+     * has needed, so evaluating does not allocate once a thread is warm
+     */
+    private static final ThreadLocal<double[]> SCRATCH = ThreadLocal.withInitial(() -> new double[64]);
+
+    /**
+     * The largest scratch buffer kept by a thread, 1 MiB. A larger batch gets a buffer of its own, collected once the
+     * batch is evaluated, so a single large batch does not pin its buffer on every pool thread for the life of the JVM.
+     */
+    static final int MAX_RETAINED_SCRATCH = 1 << 17;
+
+    @SuppressWarnings("unchecked")
+    private CompiledNeuralNetwork(
+        int[] neuronIds,
+        Function1<Double, Double>[] activations,
+        int[] axonSources,
+        int[] axonTargets,
+        double[] axonWeights,
+        int[] inputIds
+    ) {
+        val n = neuronIds.length;
+        val m = axonSources.length;
+
+        // Kahn's algorithm over a CSR adjacency list of the outgoing axons
+        val inDegree = new int[n];
+        val outOffsets = new int[n + 1];
+        for (int a = 0; a < m; a++) {
+            inDegree[axonTargets[a]]++;
+            outOffsets[axonSources[a] + 1]++;
+        }
+        for (int i = 0; i < n; i++)
+            outOffsets[i + 1] += outOffsets[i];
+
+        val outTargets = new int[m];
+        val outFill = Arrays.copyOf(outOffsets, n);
+        for (int a = 0; a < m; a++)
+            outTargets[outFill[axonSources[a]]++] = axonTargets[a];
+
+        val order = new int[n];
+        val remaining = inDegree.clone();
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < n; i++)
+            if (remaining[i] == 0)
+                order[tail++] = i;
+
+        while (head < tail) {
+            val neuron = order[head++];
+            for (int o = outOffsets[neuron]; o < outOffsets[neuron + 1]; o++)
+                if (--remaining[outTargets[o]] == 0)
+                    order[tail++] = outTargets[o];
+        }
+
+        if (tail != n)
+            throw new IllegalArgumentException("The network contains a cycle and cannot be compiled");
+
+        // The slot of a neuron is its position in the topological order
+        val slots = new int[n];
+        for (int s = 0; s < n; s++)
+            slots[order[s]] = s;
+
+        val idToIndex = new HashMap<Integer, Integer>();
+        for (int i = 0; i < n; i++)
+            idToIndex.put(neuronIds[i], i);
+
+        val preset = new boolean[n];
+        val bias = idToIndex.get(0);
+        if (bias != null)
+            preset[bias] = true;
+
+        this.inputIds = inputIds.clone();
+        this.inputSlots = new int[inputIds.length];
+        for (int i = 0; i < inputIds.length; i++) {
+            val input = idToIndex.get(inputIds[i]);
+            inputSlots[i] = input == null ? -1 : slots[input];
+            if (input != null)
+                preset[input] = true;
+        }
+
+        // Incoming axons grouped by target, keeping the order in which the axons were given
+        val inOffsets = new int[n + 1];
+        for (int a = 0; a < m; a++)
+            inOffsets[axonTargets[a] + 1]++;
+        for (int i = 0; i < n; i++)
+            inOffsets[i + 1] += inOffsets[i];
+
+        val inAxons = new int[m];
+        val inFill = Arrays.copyOf(inOffsets, n);
+        for (int a = 0; a < m; a++)
+            inAxons[inFill[axonTargets[a]]++] = a;
+
+        int evalCount = 0;
+        for (int i = 0; i < n; i++)
+            if (!preset[i])
+                evalCount++;
+
+        this.evalSlots = new int[evalCount];
+        this.opcodes = new ActivationFunction[evalCount];
+        this.customActivations = new Function1[evalCount];
+        this.incomingOffsets = new int[evalCount + 1];
+        this.incomingSources = new int[m];
+        this.incomingWeights = new double[m];
+
+        int e = 0;
+        int edge = 0;
+        for (int s = 0; s < n; s++) {
+            val neuron = order[s];
+            if (preset[neuron])
+                continue;
+
+            evalSlots[e] = s;
+            val activation = activations[neuron];
+            if (activation instanceof ActivationFunction activationFunction)
+                opcodes[e] = activationFunction;
+            else
+                customActivations[e] = activation;
+
+            for (int i = inOffsets[neuron]; i < inOffsets[neuron + 1]; i++) {
+                val axon = inAxons[i];
+                incomingSources[edge] = slots[axonSources[axon]];
+                incomingWeights[edge] = axonWeights[axon];
+                edge++;
+            }
+            incomingOffsets[++e] = edge;
+        }
+
+        int outputCount = 0;
+        for (int i = 0; i < n; i++)
+            if (outOffsets[i] == outOffsets[i + 1])
+                outputCount++;
+
+        this.outputSlots = new int[outputCount];
+        int o = 0;
+        for (int i = 0; i < n; i++)
+            if (outOffsets[i] == outOffsets[i + 1])
+                outputSlots[o++] = slots[i];
+
+        this.biasSlot = bias == null ? -1 : slots[bias];
+        this.neuronCount = n;
+    }
+
+    /**
+     * Compile a network from its flattened genes. Neurons and axons are referenced by their index in the given arrays.
+     * @param neuronIds The id of every neuron
+     * @param activations The activation function of every neuron
+     * @param axonSources The index of the source neuron of every axon
+     * @param axonTargets The index of the target neuron of every axon
+     * @param axonWeights The effective weight of every axon, 0 for disabled axons
+     * @param inputIds The ids of the neurons the inputs are bound to, in input order
+     * @return The compiled network
+     */
+    public static CompiledNeuralNetwork compile(
+        int[] neuronIds,
+        Function1<Double, Double>[] activations,
+        int[] axonSources,
+        int[] axonTargets,
+        double[] axonWeights,
+        int[] inputIds
+    ) {
+        return new CompiledNeuralNetwork(neuronIds, activations, axonSources, axonTargets, axonWeights, inputIds);
+    }
+
+    /**
+     * @return The number of inputs expected by {@link #evaluate(double[], double[])}
+     */
+    public int getInputSize() {
+        return inputSlots.length;
+    }
+
+    /**
+     * @return The number of outputs written by {@link #evaluate(double[], double[])}
+     */
+    public int getOutputSize() {
+        return outputSlots.length;
+    }
+
+    /**
+     * Check whether this network was compiled for the given input layout
+     * @param inputIds The ids of the neurons the inputs are bound to
+     * @return True if the inputs are bound to the same neurons
+     */
+    public boolean hasInputIds(int[] inputIds) {
+        return Arrays.equals(this.inputIds, inputIds);
+    }
+
+    /**
+     * Check whether this network was compiled with the inputs bound to the neurons 1 to inputSize
+     * @param inputSize The number of inputs
+     * @return True if the inputs are bound to the neurons 1 to inputSize
+     */
+    public boolean hasLeadingInputs(int inputSize) {
+        if (inputIds.length != inputSize)
+            return false;
+
+        for (int i = 0; i < inputSize; i++)
+            if (inputIds[i] != i + 1)
+                return false;
+
+        return true;
+    }
+
+    /**
+     * Evaluate the network using the scratch buffer of the calling thread
+     * @param inputs The input values, in input order
+     * @param outputs The array receiving the output values
+     */
+    public void evaluate(double[] inputs, double[] outputs) {
+        evaluate(inputs, outputs, scratch(neuronCount));
+    }
+
+    /**
+     * Evaluate the network using a caller supplied scratch buffer. This method does not allocate.
+     * @param inputs The input values, in input order
+     * @param outputs The array receiving the output values
+     * @param scratch A buffer of at least {@link #getNeuronCount()} values
+     */
+    public void evaluate(double[] inputs, double[] outputs, double[] scratch) {
+        if (biasSlot >= 0)
+            scratch[biasSlot] = 1.0;
+
+        for (int i = 0; i < inputSlots.length; i++)
+            if (inputSlots[i] >= 0)
+                scratch[inputSlots[i]] = inputs[i];
+
+        for (int e = 0; e < evalSlots.length; e++) {
+            double sum = 0.0;
+            for (int i = incomingOffsets[e]; i < incomingOffsets[e + 1]; i++)
+                sum += scratch[incomingSources[i]] * incomingWeights[i];
+
+            scratch[evalSlots[e]] = activate(e, sum);
+        }
+
+        for (int o = 0; o < outputSlots.length; o++)
+            outputs[o] = scratch[outputSlots[o]];
+    }
+
+    /**
+     * Evaluate the network over a batch of samples in a single pass, using the scratch buffer of the calling thread
+     * @param inputs The input values, row-major: the inputs of the k-th sample start at {@code k * getInputSize()}
+     * @param sampleCount The number of samples
+     * @param outputs The array receiving the output values, row-major: the outputs of the k-th sample start at
+     *                {@code k * getOutputSize()}
+     */
+    public void evaluateBatch(double[] inputs, int sampleCount, double[] outputs) {
+        evaluateBatch(inputs, sampleCount, outputs, scratch(neuronCount * sampleCount));
+    }
+
+    /**
+     * @param size The number of values needed
+     * @return The scratch buffer of the calling thread, of at least the given size, or a new buffer if the size is
+     *         above {@link #MAX_RETAINED_SCRATCH}
+     */
+    static double[] scratch(int size) {
+        if (size > MAX_RETAINED_SCRATCH)
+            return new double[size];
+
+        var buffer = SCRATCH.get();
+        if (buffer.length < size) {
+            buffer = new double[Math.min(Math.max(size, buffer.length * 2), MAX_RETAINED_SCRATCH)];
+            SCRATCH.set(buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Evaluate the network over a batch of samples in a single pass. The values are laid out neuron-major in the
+     * scratch buffer, every neuron owning a contiguous row of sampleCount values, so each axon is a single
+     * multiply-add loop over the samples that the JIT can vectorize. This method does not allocate.
+     * @param inputs The input values, row-major: the inputs of the k-th sample start at {@code k * getInputSize()}
+     * @param sampleCount The number of samples
+     * @param outputs The array receiving the output values, row-major: the outputs of the k-th sample start at
+     *                {@code k * getOutputSize()}
+     * @param scratch A buffer of at least {@code getNeuronCount() * sampleCount} values
+     */
+    public void evaluateBatch(double[] inputs, int sampleCount, double[] outputs, double[] scratch) {
+        if (biasSlot >= 0)
+            Arrays.fill(scratch, biasSlot * sampleCount, (biasSlot + 1) * sampleCount, 1.0);
+
+        val inputSize = inputSlots.length;
+        for (int i = 0; i < inputSize; i++) {
+            if (inputSlots[i] < 0)
+                continue;
+
+            val row = inputSlots[i] * sampleCount;
+            for (int k = 0; k < sampleCount; k++)
+                scratch[row + k] = inputs[k * inputSize + i];
+        }
+
+        propagate(scratch, sampleCount);
+
+        val outputSize = outputSlots.length;
+        for (int o = 0; o < outputSize; o++) {
+            val row = outputSlots[o] * sampleCount;
+            for (int k = 0; k < sampleCount; k++)
+                outputs[k * outputSize + o] = scratch[row + k];
+        }
+    }
+
+    /**
+     * Evaluate the network over a batch of samples laid out column-major, using the scratch buffer of the calling
+     * thread
+     * @param inputs The input values, column-major: the values of the i-th input start at {@code i * sampleCount}
+     * @param sampleCount The number of samples
+     * @param outputs The array receiving the output values, column-major: the values of the o-th output start at
+     *                {@code o * sampleCount}
+     */
+    public void evaluateColumns(double[] inputs, int sampleCount, double[] outputs) {
+        evaluateColumns(inputs, sampleCount, outputs, scratch(neuronCount * sampleCount));
+    }
+
+    /**
+     * Evaluate the network over a batch of samples laid out column-major. This is the layout of the scratch buffer,
+     * so the inputs and the outputs are moved with one array copy per column instead of being transposed. This
+     * method does not allocate.
+     * @param inputs The input values, column-major: the values of the i-th input start at {@code i * sampleCount}
+     * @param sampleCount The number of samples
+     * @param outputs The array receiving the output values, column-major: the values of the o-th output start at
+     *                {@code o * sampleCount}
+     * @param scratch A buffer of at least {@code getNeuronCount() * sampleCount} values
+     */
+    public void evaluateColumns(double[] inputs, int sampleCount, double[] outputs, double[] scratch) {
+        if (biasSlot >= 0)
+            Arrays.fill(scratch, biasSlot * sampleCount, (biasSlot + 1) * sampleCount, 1.0);
+
+        for (int i = 0; i < inputSlots.length; i++)
+            if (inputSlots[i] >= 0)
+                System.arraycopy(inputs, i * sampleCount, scratch, inputSlots[i] * sampleCount, sampleCount);
+
+        propagate(scratch, sampleCount);
+
+        for (int o = 0; o < outputSlots.length; o++)
+            System.arraycopy(scratch, outputSlots[o] * sampleCount, outputs, o * sampleCount, sampleCount);
+    }
+
+    /**
+     * Compute the evaluated neurons of a batch, once the bias and input rows of the scratch buffer are set
+     */
+    private void propagate(double[] scratch, int sampleCount) {
+        for (int e = 0; e < evalSlots.length; e++) {
+            val row = evalSlots[e] * sampleCount;
+            Arrays.fill(scratch, row, row + sampleCount, 0.0);
+
+            for (int i = incomingOffsets[e]; i < incomingOffsets[e + 1]; i++) {
+                val source = incomingSources[i] * sampleCount;
+                val weight = incomingWeights[i];
+                for (int k = 0; k < sampleCount; k++)
+                    scratch[row + k] += scratch[source + k] * weight;
+            }
+
+            activateBatch(e, scratch, row, sampleCount);
+        }
+    }
+
+    /**
+     * Apply the activation of the e-th evaluated neuron to a row of values in place, dispatching once for the whole
+     * row to the loop specialized for the activation
+     */
+    private void activateBatch(int e, double[] values, int from, int count) {
+        val opcode = opcodes[e];
+        if (opcode != null) {
+            opcode.applyBatch(values, from, values, from, count);
+            return;
+        }
+
+        val to = from + count;
+        for (int k = from; k < to; k++)
+            values[k] = customActivations[e].apply(values[k]);
+    }
+
+    /**
+     * Apply the activation of the e-th evaluated neuron. Known activation functions are inlined to avoid boxing and a
+     * megamorphic call per neuron, custom ones fall back to their boxed implementation.
+     */
+    private double activate(int e, double x) {
+        val opcode = opcodes[e];
+        if (opcode == null)
+            return customActivations[e].apply(x);
+
+        return switch (opcode) {
+            case RELU -> ActivationFunction.relu(x);
+            case LINEAR -> x;
+            case TANH -> Math.tanh(x);
+            case SIGMOID -> ActivationFunction.sigmoid(x);
+            case FAST_TANH -> ActivationFunction.fastTanh(x);
+            case FAST_SIGMOID -> ActivationFunction.fastSigmoid(x);
+        };
+    }
+}
@@ -0,0 +1,147 @@
+package be.floshie.neat.ai;
+
+import be.floshie.neat.ai.graph.Axon;
+import lombok.val;
+
+import java.util.Arrays;
+
+/**
+ * The axons of a neural network seen as NEAT genes: parallel primitive arrays of innovation number, weight and
+ * enabled flag, sorted by innovation number. The axon of each gene is kept alongside, so the array doubles as an
+ * innovation index. The array is maintained incrementally by {@link AdvancedNeuralNetwork} as axons are added,
+ * removed or reweighted, so comparing two genomes is a single merge walk over two sorted arrays.
+ * <p>
+ * The weights are the raw weights of the axons, regardless of whether they are enabled.
+ */
+public final class GeneArray {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] innovations;
+    private double[] weights;
+    private boolean[] enabled;
+    private Axon[] axons;
+    private int size = 0;
+
+    GeneArray() {
+        this(INITIAL_CAPACITY);
+    }
+
+    private GeneArray(int capacity) {
+        this.innovations = new int[capacity];
+        this.weights = new double[capacity];
+        this.enabled = new boolean[capacity];
+        this.axons = new Axon[capacity];
+    }
+
+    /**
+     * @return The number of genes
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param index The index of the gene, genes are sorted by innovation number
+     * @return The innovation number of the gene
+     */
+    public int innovation(int index) {
+        return innovations[index];
+    }
+
+    /**
+     * @param index The index of the gene, genes are sorted by innovation number
+     * @return The raw weight of the gene
+     */
+    public double weight(int index) {
+        return weights[index];
+    }
+
+    /**
+     * @param index The index of the gene, genes are sorted by innovation number
+     * @return Whether the gene is enabled
+     */
+    public boolean isEnabled(int index) {
+        return enabled[index];
+    }
+
+    /**
+     * @param index The index of the gene, genes are sorted by innovation number
+     * @return The axon of the gene
+     */
+    public Axon axon(int index) {
+        return axons[index];
+    }
+
+    /**
+     * @return The highest innovation number, 0 if there is no gene
+     */
+    public int maxInnovation() {
+        return size == 0 ? 0 : innovations[size - 1];
+    }
+
+    /**
+     * @param innovation An innovation number
+     * @return The index of the gene with this innovation number, or a negative value if there is none
+     */
+    public int indexOf(int innovation) {
+        return Arrays.binarySearch(innovations, 0, size, innovation);
+    }
+
+    void put(Axon axon, double weight) {
+        val innovation = axon.getInnovation();
+        var index = indexOf(innovation);
+        if (index < 0) {
+            index = -index - 1;
+            ensureCapacity(size + 1);
+            System.arraycopy(innovations, index, innovations, index + 1, size - index);
+            System.arraycopy(weights, index, weights, index + 1, size - index);
+            System.arraycopy(enabled, index, enabled, index + 1, size - index);
+            System.arraycopy(axons, index, axons, index + 1, size - index);
+            size++;
+        }
+
+        innovations[index] = innovation;
+        weights[index] = weight;
+        enabled[index] = axon.isEnabled();
+        axons[index] = axon;
+    }
+
+    void remove(int innovation) {
+        val index = indexOf(innovation);
+        if (index < 0)
+            return;
+
+        System.arraycopy(innovations, index + 1, innovations, index, size - index - 1);
+        System.arraycopy(weights, index + 1, weights, index, size - index - 1);
+        System.arraycopy(enabled, index + 1, enabled, index, size - index - 1);
+        System.arraycopy(axons, index + 1, axons, index, size - index - 1);
+        axons[--size] = null;
+    }
+
+    void setWeight(int innovation, double weight) {
+        val index = indexOf(innovation);
+        if (index >= 0)
+            weights[index] = weight;
+    }
+
+    GeneArray copy() {
+        val copy = new GeneArray(Math.max(size, INITIAL_CAPACITY));
+        System.arraycopy(innovations, 0, copy.innovations, 0, size);
+        System.arraycopy(weights, 0, copy.weights, 0, size);
+        System.arraycopy(enabled, 0, copy.enabled, 0, size);
+        System.arraycopy(axons, 0, copy.axons, 0, size);
+        copy.size = size;
+        return copy;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= innovations.length)
+            return;
+
+        val newCapacity = Math.max(capacity, innovations.length * 2);
+        innovations = Arrays.copyOf(innovations, newCapacity);
+        weights = Arrays.copyOf(weights, newCapacity);
+        enabled = Arrays.copyOf(enabled, newCapacity);
+        axons = Arrays.copyOf(axons, newCapacity);
+    }
+}
@@ -0,0 +1,77 @@
+package be.floshie.neat.ai;
+
+import be.floshie.neat.ai.graph.Axon;
+import be.floshie.neat.ai.graph.Neuron;
+import lombok.val;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * A structural key of a neural network: two networks have equal signatures when they have the same neurons with the
+ * same activation functions, and the same axons with the same endpoints, weights and enabled flags. It is used to
+ * share the results of deterministic computations, such as the fitness, between identical genomes.
+ */
+public final class GenomeSignature {
+    private final long[] words;
+    private final int hash;
+
+    private GenomeSignature(long[] words) {
+        this.words = words;
+        this.hash = Arrays.hashCode(words);
+    }
+
+    /**
+     * Compute the signature of a network
+     * @param network The network
+     * @return The signature of the network
+     */
+    static GenomeSignature of(AdvancedNeuralNetwork network) {
+        val neurons = network.vertexSet().stream()
+            .sorted(Comparator.comparingInt(Neuron::getId))
+            .toList();
+        val axons = network.edgeSet().stream()
+            .sorted(Comparator.comparingInt(Axon::getInnovation))
+            .toList();
+
+        // One word per neuron, three words per axon
+        val words = new long[2 + neurons.size() + 3 * axons.size()];
+        int w = 0;
+        words[w++] = neurons.size();
+        words[w++] = axons.size();
+
+        for (val neuron : neurons)
+            words[w++] = ((long) neuron.getId() << 32) | (activationCode(neuron.getActivationFunction()) & 0xFFFFFFFFL);
+
+        for (val axon : axons) {
+            val source = network.getEdgeSource(axon).getId();
+            val target = network.getEdgeTarget(axon).getId();
+            words[w++] = ((long) axon.getInnovation() << 1) | (axon.isEnabled() ? 1 : 0);
+            words[w++] = ((long) source << 32) | (target & 0xFFFFFFFFL);
+            words[w++] = Double.doubleToLongBits(network.getEnabledEdgeWeight(axon));
+        }
+
+        return new GenomeSignature(words);
+    }
+
+    private static int activationCode(Object activationFunction) {
+        return activationFunction instanceof ActivationFunction known
+            ? known.ordinal()
+            : Integer.MIN_VALUE | System.identityHashCode(activationFunction);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+
+        return o instanceof GenomeSignature other
+            && hash == other.hash
+            && Arrays.equals(words, other.words);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
@@ -13,26 +13,17 @@ public class Axon {
     @EqualsAndHashCode.Exclude
     private final boolean enabled;
 
-    @Setter
-    @EqualsAndHashCode.Exclude
-    private double weight;
-
     public Axon(int id) {
         this(id, true);
     }
 
     public Axon(int id, boolean enabled) {
-        this(id, InnovationNumber.innovationCounter++, enabled);
-    }
-
-    protected Axon(int id, int innovation, boolean enabled) {
-        this(id, innovation, enabled, 1.0);
+        this(id, InnovationRegistry.global().nextInnovation(), enabled);
     }
 
-    protected Axon(int id, int innovation, boolean enabled, double weight) {
+    public Axon(int id, int innovation, boolean enabled) {
         this.id = id;
         this.enabled = enabled;
         this.innovation = innovation;
-        this.weight = weight;
     }
 }
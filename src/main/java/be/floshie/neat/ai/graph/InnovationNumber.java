@@ -1,5 +0,0 @@
-package be.floshie.neat.ai.graph;
-
-public class InnovationNumber {
-    public static int innovationCounter = 0;
-}
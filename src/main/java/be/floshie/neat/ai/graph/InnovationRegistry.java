@@ -0,0 +1,174 @@
+package be.floshie.neat.ai.graph;
+
+import lombok.Value;
+import lombok.val;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Hands out the innovation numbers of the axons and the ids of the neurons created by splitting an axon.
+ * <p>
+ * Within a generation, the same structural mutation always gets the same number: every new axon between the same two
+ * neurons shares one innovation number, and every split of the same axon creates a neuron with the same id. This
+ * keeps the genomes aligned, so identical mutations do not show up as disjoint genes. The registry is lock-free
+ * (counters) and lock-striped (lookups), so it can be used by several reproduction threads at once.
+ */
+public final class InnovationRegistry {
+    private static final InnovationRegistry GLOBAL = new InnovationRegistry();
+
+    private final AtomicInteger innovationCounter = new AtomicInteger();
+    private final AtomicInteger neuronCounter = new AtomicInteger();
+
+    /**
+     * The step between two numbers handed out, greater than 1 when the numbers are partitioned between islands
+     */
+    private volatile int stride = 1;
+
+    /**
+     * The innovation numbers handed out this generation, keyed by source and target neuron ids
+     */
+    private final ConcurrentHashMap<Long, Integer> axonInnovations = new ConcurrentHashMap<>();
+
+    /**
+     * The neuron ids handed out this generation, keyed by the innovation number of the split axon
+     */
+    private final ConcurrentHashMap<Integer, Integer> splitNeurons = new ConcurrentHashMap<>();
+
+    /**
+     * @return The registry shared by the whole application
+     */
+    public static InnovationRegistry global() {
+        return GLOBAL;
+    }
+
+    /**
+     * Get a fresh innovation number, not tied to any structural mutation
+     * @return The innovation number
+     */
+    public int nextInnovation() {
+        return innovationCounter.getAndAdd(stride);
+    }
+
+    /**
+     * Get the innovation number of an axon between two neurons. The first request for a pair of neurons in a
+     * generation creates a new number, the next ones get the same number.
+     * @param sourceId The id of the source neuron
+     * @param targetId The id of the target neuron
+     * @return The innovation number
+     */
+    public int innovationFor(int sourceId, int targetId) {
+        val key = ((long) sourceId << 32) | (targetId & 0xFFFFFFFFL);
+        return axonInnovations.computeIfAbsent(key, it -> innovationCounter.getAndAdd(stride));
+    }
+
+    /**
+     * Get a fresh neuron id, not tied to any structural mutation
+     * @return The neuron id
+     */
+    public int nextNeuronId() {
+        return neuronCounter.getAndAdd(stride);
+    }
+
+    /**
+     * Get the id of the neuron created by splitting an axon. The first split of an axon in a generation creates a new
+     * id, the next ones get the same id.
+     * @param splitInnovation The innovation number of the split axon
+     * @return The neuron id
+     */
+    public int neuronFor(int splitInnovation) {
+        return splitNeurons.computeIfAbsent(splitInnovation, it -> neuronCounter.getAndAdd(stride));
+    }
+
+    /**
+     * Make sure the neuron ids handed out from now on are above the given ids, typically the ids of the input and
+     * output neurons of the initial networks
+     * @param count The number of reserved neuron ids, starting at 0
+     */
+    public void reserveNeuronIds(int count) {
+        neuronCounter.accumulateAndGet(count, Math::max);
+    }
+
+    /**
+     * Partition the numbers handed out from now on between several registries, typically one per island of an island
+     * model: the registry of the island index only hands out numbers congruent to index modulo count. The genes of
+     * the islands then never share a number unless they come from a common ancestor, so migrants can be crossed with
+     * the local individuals. It must be called while no structural mutation is going on.
+     * @param index The index of this registry, between 0 and count - 1
+     * @param count The number of registries
+     */
+    public void partition(int index, int count) {
+        if (index < 0 || index >= count)
+            throw new IllegalArgumentException("The index " + index + " is not between 0 and " + (count - 1));
+
+        innovationCounter.getAndUpdate(it -> it + Math.floorMod(index - it, count));
+        neuronCounter.getAndUpdate(it -> it + Math.floorMod(index - it, count));
+        stride = count;
+    }
+
+    /**
+     * Start a new generation: the next structural mutations get new numbers even if they were already seen
+     */
+    public void nextGeneration() {
+        axonInnovations.clear();
+        splitNeurons.clear();
+    }
+
+    /**
+     * Capture the state of the registry. It must be called between two generations, while no structural mutation is
+     * going on.
+     * @return The state of the registry
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+            innovationCounter.get(),
+            neuronCounter.get(),
+            new HashMap<>(axonInnovations),
+            new HashMap<>(splitNeurons)
+        );
+    }
+
+    /**
+     * Replace the state of the registry with a captured one, typically to resume a run
+     * @param snapshot The state to restore
+     */
+    public void restore(Snapshot snapshot) {
+        nextGeneration();
+        axonInnovations.putAll(snapshot.getAxonInnovations());
+        splitNeurons.putAll(snapshot.getSplitNeurons());
+        innovationCounter.set(snapshot.getInnovationCounter());
+        neuronCounter.set(snapshot.getNeuronCounter());
+    }
+
+    /**
+     * Start a new run: forget every structural mutation and restart the numbering from 0
+     */
+    public void reset() {
+        nextGeneration();
+        innovationCounter.set(0);
+        neuronCounter.set(0);
+        stride = 1;
+    }
+
+    /**
+     * The state of a registry at some point of a run
+     */
+    @Value
+    public static class Snapshot {
+        int innovationCounter;
+        int neuronCounter;
+
+        /**
+         * The innovation numbers handed out in the current generation, keyed by source id in the high 32 bits and
+         * target id in the low 32 bits
+         */
+        Map<Long, Integer> axonInnovations;
+
+        /**
+         * The neuron ids handed out in the current generation, keyed by the innovation number of the split axon
+         */
+        Map<Integer, Integer> splitNeurons;
+    }
+}
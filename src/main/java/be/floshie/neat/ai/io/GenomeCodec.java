@@ -0,0 +1,165 @@
+package be.floshie.neat.ai.io;
+
+import be.floshie.neat.ai.ActivationFunction;
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.CompiledNeuralNetwork;
+import be.floshie.neat.ai.graph.Axon;
+import be.floshie.neat.ai.graph.Neuron;
+import lombok.val;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.stream.IntStream;
+
+/**
+ * A compact binary form of a genome. The neurons and the axons are written in the iteration order of the network and
+ * read back in the same order, so the decoded network iterates, mutates and evaluates exactly like the original one.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int axonId, int neuronId                  the id counters of the network
+ * int neuronCount
+ *   int id, byte activation                 the ordinal of the {@link ActivationFunction}
+ * int axonCount
+ *   int id, int innovation,
+ *   int source, int target,                 the index of the neurons in the neuron list
+ *   double weight, byte enabled             the raw weight, kept for disabled axons
+ * </pre>
+ * The layout is identified by {@link #VERSION}, which the files embedding genomes record in their header.
+ */
+public final class GenomeCodec {
+    /**
+     * The version of the layout, to increment on every incompatible change
+     */
+    public static final short VERSION = 1;
+
+    private static final ActivationFunction[] ACTIVATIONS = ActivationFunction.values();
+
+    private GenomeCodec() {
+    }
+
+    /**
+     * Write a genome
+     * @param network The network, its neurons must use an {@link ActivationFunction}
+     * @param out The output
+     * @throws IOException If the genome cannot be written
+     */
+    public static void write(AdvancedNeuralNetwork network, DataOutput out) throws IOException {
+        out.writeInt(network.getAxonId());
+        out.writeInt(network.getNeuronId());
+
+        val neurons = network.vertexSet();
+        val indices = new HashMap<Neuron, Integer>(neurons.size() * 2);
+        out.writeInt(neurons.size());
+        for (val neuron : neurons) {
+            if (!(neuron.getActivationFunction() instanceof ActivationFunction activation))
+                throw new IllegalArgumentException("Only the known activation functions can be written: " + neuron);
+
+            indices.put(neuron, indices.size());
+            out.writeInt(neuron.getId());
+            out.writeByte(activation.ordinal());
+        }
+
+        val axons = network.edgeSet();
+        out.writeInt(axons.size());
+        for (val axon : axons) {
+            out.writeInt(axon.getId());
+            out.writeInt(axon.getInnovation());
+            out.writeInt(indices.get(network.getEdgeSource(axon)));
+            out.writeInt(indices.get(network.getEdgeTarget(axon)));
+            out.writeDouble(network.getEnabledEdgeWeight(axon));
+            out.writeByte(axon.isEnabled() ? 1 : 0);
+        }
+    }
+
+    /**
+     * Read a genome at the position of the buffer, and move the position past it
+     * @param in The buffer
+     * @return The network
+     */
+    public static AdvancedNeuralNetwork read(ByteBuffer in) {
+        val network = AdvancedNeuralNetwork.empty();
+        val axonId = in.getInt();
+        val neuronId = in.getInt();
+
+        val neurons = new Neuron[in.getInt()];
+        for (int i = 0; i < neurons.length; i++) {
+            neurons[i] = new Neuron(in.getInt(), activation(in.get()));
+            network.addVertex(neurons[i]);
+        }
+
+        val axonCount = in.getInt();
+        for (int i = 0; i < axonCount; i++) {
+            val id = in.getInt();
+            val innovation = in.getInt();
+            val source = neurons[in.getInt()];
+            val target = neurons[in.getInt()];
+            val weight = in.getDouble();
+            val axon = new Axon(id, innovation, in.get() != 0);
+
+            network.addEdge(source, target, axon);
+            network.setEdgeWeight(axon, weight);
+        }
+
+        network.setAxonId(axonId);
+        network.setNeuronId(neuronId);
+        return network;
+    }
+
+    /**
+     * Read a genome at the position of the buffer straight into its compiled form, with the inputs linked to the
+     * neurons 1 to inputSize. The graph form is never built, the genes are decoded into the arrays the compiled form
+     * is built from.
+     * @param in The buffer
+     * @param inputSize The number of inputs
+     * @return The compiled network
+     */
+    public static CompiledNeuralNetwork compile(ByteBuffer in, int inputSize) {
+        return compile(in, IntStream.rangeClosed(1, inputSize).toArray());
+    }
+
+    /**
+     * Read a genome at the position of the buffer straight into its compiled form, with the inputs linked to the
+     * given neurons
+     * @param in The buffer
+     * @param inputIds The ids of the input neurons, in input order
+     * @return The compiled network
+     */
+    public static CompiledNeuralNetwork compile(ByteBuffer in, int[] inputIds) {
+        // The id counters only matter to the graph form
+        in.getInt();
+        in.getInt();
+
+        val neuronCount = in.getInt();
+        val neuronIds = new int[neuronCount];
+        val activations = new ActivationFunction[neuronCount];
+        for (int i = 0; i < neuronCount; i++) {
+            neuronIds[i] = in.getInt();
+            activations[i] = activation(in.get());
+        }
+
+        val axonCount = in.getInt();
+        val sources = new int[axonCount];
+        val targets = new int[axonCount];
+        val weights = new double[axonCount];
+        for (int a = 0; a < axonCount; a++) {
+            in.getInt();
+            in.getInt();
+            sources[a] = in.getInt();
+            targets[a] = in.getInt();
+            val weight = in.getDouble();
+            weights[a] = in.get() != 0 ? weight : 0;
+        }
+
+        return CompiledNeuralNetwork.compile(neuronIds, activations, sources, targets, weights, inputIds);
+    }
+
+    private static ActivationFunction activation(byte ordinal) {
+        if (ordinal < 0 || ordinal >= ACTIVATIONS.length)
+            throw new IllegalArgumentException("Unknown activation function " + ordinal);
+
+        return ACTIVATIONS[ordinal];
+    }
+}
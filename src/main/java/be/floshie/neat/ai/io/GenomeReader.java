@@ -0,0 +1,126 @@
+package be.floshie.neat.ai.io;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.CompiledNeuralNetwork;
+import io.vavr.collection.List;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Reads a stream of genomes written by a {@link GenomeWriter}, one at a time. Every genome is read into a buffer
+ * reused from one genome to the next, then decoded either into its graph form or straight into its compiled form.
+ */
+public class GenomeReader implements AutoCloseable {
+    private final DataInputStream in;
+    private byte[] record = new byte[1024];
+    private int nextLength;
+
+    /**
+     * Open a stream of genomes, checking its header
+     * @param in The input, closed with the reader
+     * @throws IOException If the input is not a stream of genomes of a supported version
+     */
+    public GenomeReader(InputStream in) throws IOException {
+        this.in = new DataInputStream(in);
+        if (this.in.readInt() != GenomeWriter.MAGIC)
+            throw new IOException("Not a stream of genomes");
+
+        short version = this.in.readShort();
+        if (version != GenomeCodec.VERSION)
+            throw new IOException("Unsupported genome version " + version);
+
+        nextLength = readLength();
+    }
+
+    /**
+     * Open a stream of genomes stored in a file
+     * @param file The file
+     * @return The reader
+     * @throws IOException If the file cannot be opened or is not a stream of genomes
+     */
+    public static GenomeReader open(Path file) throws IOException {
+        return new GenomeReader(new BufferedInputStream(Files.newInputStream(file), 1 << 16));
+    }
+
+    /**
+     * @return True if the stream has another genome
+     */
+    public boolean hasNext() {
+        return nextLength >= 0;
+    }
+
+    /**
+     * Read the next genome into its graph form
+     * @return The network
+     * @throws IOException If the genome cannot be read
+     */
+    public AdvancedNeuralNetwork next() throws IOException {
+        return GenomeCodec.read(nextRecord());
+    }
+
+    /**
+     * Read the next genome straight into its compiled form, with the inputs linked to the neurons 1 to inputSize
+     * @param inputSize The number of inputs
+     * @return The compiled network
+     * @throws IOException If the genome cannot be read
+     */
+    public CompiledNeuralNetwork nextCompiled(int inputSize) throws IOException {
+        return GenomeCodec.compile(nextRecord(), inputSize);
+    }
+
+    /**
+     * Skip the next genome without decoding it
+     * @throws IOException If the genome cannot be skipped
+     */
+    public void skip() throws IOException {
+        nextRecord();
+    }
+
+    /**
+     * Read the remaining genomes into their graph form
+     * @return The networks, in stream order
+     * @throws IOException If a genome cannot be read
+     */
+    public List<AdvancedNeuralNetwork> readAll() throws IOException {
+        var networks = List.<AdvancedNeuralNetwork>empty();
+        while (hasNext())
+            networks = networks.prepend(next());
+        return networks.reverse();
+    }
+
+    private ByteBuffer nextRecord() throws IOException {
+        if (!hasNext())
+            throw new EOFException("No more genomes");
+
+        int length = nextLength;
+        if (record.length < length)
+            record = new byte[Math.max(length, record.length * 2)];
+        in.readFully(record, 0, length);
+        nextLength = readLength();
+
+        return ByteBuffer.wrap(record, 0, length);
+    }
+
+    /**
+     * @return The length of the next genome, -1 at the end of the stream
+     */
+    private int readLength() throws IOException {
+        int b1 = in.read();
+        if (b1 < 0)
+            return -1;
+
+        return (b1 << 24) | (in.readUnsignedByte() << 16) | (in.readUnsignedByte() << 8) | in.readUnsignedByte();
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
@@ -0,0 +1,78 @@
+package be.floshie.neat.ai.io;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import lombok.val;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes a stream of genomes, one at a time, so a whole population can be exported without holding its encoded form
+ * in memory. The stream starts with a header, then every genome is prefixed by its length in bytes so a reader can
+ * skip it without decoding it:
+ * <pre>
+ * int magic, short version                  the version of the {@link GenomeCodec} layout
+ * (int length, genome)*                     until the end of the stream
+ * </pre>
+ */
+public class GenomeWriter implements AutoCloseable {
+    static final int MAGIC = 0x4E474E53; // NGNS
+
+    private final DataOutputStream out;
+    private final ByteArrayOutputStream record = new ByteArrayOutputStream();
+    private final DataOutputStream recordOut = new DataOutputStream(record);
+
+    /**
+     * Start a stream of genomes, writing its header
+     * @param out The output, closed with the writer
+     * @throws IOException If the header cannot be written
+     */
+    public GenomeWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(out);
+        this.out.writeInt(MAGIC);
+        this.out.writeShort(GenomeCodec.VERSION);
+    }
+
+    /**
+     * Start a stream of genomes in a file, replacing its content
+     * @param file The file
+     * @return The writer
+     * @throws IOException If the file cannot be opened
+     */
+    public static GenomeWriter open(Path file) throws IOException {
+        return new GenomeWriter(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+    }
+
+    /**
+     * Append a genome to the stream
+     * @param network The network, its neurons must use an {@link be.floshie.neat.ai.ActivationFunction}
+     * @throws IOException If the genome cannot be written
+     */
+    public void write(AdvancedNeuralNetwork network) throws IOException {
+        record.reset();
+        GenomeCodec.write(network, recordOut);
+
+        out.writeInt(record.size());
+        record.writeTo(out);
+    }
+
+    /**
+     * Append genomes to the stream
+     * @param networks The networks
+     * @throws IOException If a genome cannot be written
+     */
+    public void writeAll(Iterable<AdvancedNeuralNetwork> networks) throws IOException {
+        for (val network : networks)
+            write(network);
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+}
@@ -0,0 +1,38 @@
+package be.floshie.neat.checkpoint;
+
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.termination.RunProgress;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import io.vavr.collection.List;
+import lombok.Value;
+
+/**
+ * Everything needed to resume a run at the start of a generation. The random generators are derived from the seed and
+ * the generation number, so they need no state of their own, and the fitness cache is left out since it only saves
+ * evaluations.
+ */
+@Value
+public class Checkpoint {
+    long seed;
+
+    /**
+     * The generation the population belongs to, the next one to evaluate
+     */
+    int generation;
+
+    /**
+     * The raw fitness the individuals of the generation must be able to reach to be fully evaluated, negative infinity
+     * without racing
+     */
+    double racingThreshold;
+
+    /**
+     * The progress of the run up to the generation, so the termination conditions go on from there
+     */
+    RunProgress.Snapshot progress;
+
+    List<Individual> population;
+    InnovationRegistry.Snapshot registry;
+    SpeciationAlgorithm.Snapshot speciation;
+}
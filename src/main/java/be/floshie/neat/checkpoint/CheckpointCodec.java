@@ -0,0 +1,196 @@
+package be.floshie.neat.checkpoint;
+
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ai.io.GenomeCodec;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.ga.speciation.Species;
+import be.floshie.neat.ga.termination.RunProgress;
+import io.vavr.collection.List;
+import lombok.val;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * The binary checkpoint format. Checkpoints are read through a memory-mapped buffer, so resuming a run does not parse
+ * any text and only touches the pages it decodes.
+ * <p>
+ * Layout, big-endian:
+ * <pre>
+ * int magic, short version
+ * short genomeVersion                                 since version 4, the {@link GenomeCodec#VERSION}
+ * long seed, int generation
+ * double racingThreshold                              since version 2
+ * int lastGeneration, long evaluations, double savedEvaluations, since version 3
+ *   double bestFitness, int generationsWithoutImprovement, long elapsedNanos
+ * int innovationCounter, int neuronCounter
+ * int axonInnovationCount, (long key, int innovation)*
+ * int splitNeuronCount, (int innovation, int neuronId)*
+ * int populationSize, genome*                         see {@link GenomeCodec}
+ * int nextSpeciesId, int speciesCount
+ *   int id, int age, double bestFitness, int lastImprovedAge, genome of the representative
+ * </pre>
+ */
+public final class CheckpointCodec {
+    private static final int MAGIC = 0x4E454154; // NEAT
+    private static final short VERSION = 4;
+
+    private CheckpointCodec() {
+    }
+
+    /**
+     * Write a checkpoint to a file. The checkpoint is written next to the file first and then moved over it, so the
+     * file always holds a complete checkpoint even if the process dies while writing.
+     * @param checkpoint The checkpoint
+     * @param file The file
+     * @throws IOException If the checkpoint cannot be written
+     */
+    public static void write(Checkpoint checkpoint, Path file) throws IOException {
+        val temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (val out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temporary), 1 << 16))) {
+            write(checkpoint, out);
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Write a checkpoint
+     * @param checkpoint The checkpoint
+     * @param out The output
+     * @throws IOException If the checkpoint cannot be written
+     */
+    public static void write(Checkpoint checkpoint, DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeShort(GenomeCodec.VERSION);
+        out.writeLong(checkpoint.getSeed());
+        out.writeInt(checkpoint.getGeneration());
+        out.writeDouble(checkpoint.getRacingThreshold());
+
+        val progress = checkpoint.getProgress();
+        out.writeInt(progress.getGeneration());
+        out.writeLong(progress.getEvaluations());
+        out.writeDouble(progress.getSavedEvaluations());
+        out.writeDouble(progress.getBestFitness());
+        out.writeInt(progress.getGenerationsWithoutImprovement());
+        out.writeLong(progress.getElapsedNanos());
+
+        val registry = checkpoint.getRegistry();
+        out.writeInt(registry.getInnovationCounter());
+        out.writeInt(registry.getNeuronCounter());
+        out.writeInt(registry.getAxonInnovations().size());
+        for (val entry : registry.getAxonInnovations().entrySet()) {
+            out.writeLong(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+        out.writeInt(registry.getSplitNeurons().size());
+        for (val entry : registry.getSplitNeurons().entrySet()) {
+            out.writeInt(entry.getKey());
+            out.writeInt(entry.getValue());
+        }
+
+        out.writeInt(checkpoint.getPopulation().size());
+        for (val individual : checkpoint.getPopulation())
+            GenomeCodec.write(individual.getAdvancedNeuralNetwork(), out);
+
+        val speciation = checkpoint.getSpeciation();
+        out.writeInt(speciation.getNextSpeciesId());
+        out.writeInt(speciation.getSpecies().size());
+        for (val species : speciation.getSpecies()) {
+            out.writeInt(species.getId());
+            out.writeInt(species.getAge());
+            out.writeDouble(species.getBestFitness());
+            out.writeInt(species.getLastImprovedAge());
+            GenomeCodec.write(species.getRepresentative().getAdvancedNeuralNetwork(), out);
+        }
+    }
+
+    /**
+     * Read a checkpoint from a file through a memory-mapped buffer
+     * @param file The file
+     * @return The checkpoint
+     * @throws IOException If the file cannot be read or is not a checkpoint
+     */
+    public static Checkpoint read(Path file) throws IOException {
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Read a checkpoint at the position of the buffer
+     * @param in The buffer
+     * @return The checkpoint
+     * @throws IOException If the buffer does not hold a checkpoint of a supported version
+     */
+    public static Checkpoint read(ByteBuffer in) throws IOException {
+        if (in.getInt() != MAGIC)
+            throw new IOException("Not a checkpoint");
+
+        val version = in.getShort();
+        if (version < 1 || version > VERSION)
+            throw new IOException("Unsupported checkpoint version " + version);
+        // The genomes of older checkpoints use the first layout
+        val genomeVersion = version >= 4 ? in.getShort() : 1;
+        if (genomeVersion != GenomeCodec.VERSION)
+            throw new IOException("Unsupported genome version " + genomeVersion);
+
+        val seed = in.getLong();
+        val generation = in.getInt();
+        val racingThreshold = version >= 2 ? in.getDouble() : Double.NEGATIVE_INFINITY;
+        // Older checkpoints have no progress, the termination conditions start over as they used to
+        val progress = version >= 3 ? new RunProgress.Snapshot(
+            in.getInt(),
+            in.getLong(),
+            in.getDouble(),
+            in.getDouble(),
+            in.getInt(),
+            in.getLong()
+        ) : RunProgress.Snapshot.INITIAL;
+
+        val innovationCounter = in.getInt();
+        val neuronCounter = in.getInt();
+        val axonInnovations = new HashMap<Long, Integer>();
+        for (int i = in.getInt(); i > 0; i--)
+            axonInnovations.put(in.getLong(), in.getInt());
+        val splitNeurons = new HashMap<Integer, Integer>();
+        for (int i = in.getInt(); i > 0; i--)
+            splitNeurons.put(in.getInt(), in.getInt());
+        val registry = new InnovationRegistry.Snapshot(innovationCounter, neuronCounter, axonInnovations, splitNeurons);
+
+        val population = new Individual[in.getInt()];
+        for (int i = 0; i < population.length; i++)
+            population[i] = new Individual(GenomeCodec.read(in));
+
+        val nextSpeciesId = in.getInt();
+        val species = new Species.State[in.getInt()];
+        for (int i = 0; i < species.length; i++) {
+            val id = in.getInt();
+            val age = in.getInt();
+            val bestFitness = in.getDouble();
+            val lastImprovedAge = in.getInt();
+            val representative = new Individual(GenomeCodec.read(in));
+            species[i] = new Species.State(id, representative, age, bestFitness, lastImprovedAge);
+        }
+
+        return new Checkpoint(
+            seed,
+            generation,
+            racingThreshold,
+            progress,
+            List.of(population),
+            registry,
+            new SpeciationAlgorithm.Snapshot(nextSpeciesId, List.of(species))
+        );
+    }
+}
@@ -0,0 +1,51 @@
+package be.floshie.neat.checkpoint;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes checkpoints on a background thread, so the generation loop does not wait for the disk. Checkpoints are
+ * written in the order they are submitted. The state captured in a checkpoint must not change once submitted: the
+ * genomes of a population are never modified after their creation, and the registry and species are snapshots.
+ */
+@Slf4j
+public class CheckpointWriter implements AutoCloseable {
+    private final Path file;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "checkpoint-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public CheckpointWriter(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Write a checkpoint in the background, replacing the previous one
+     * @param checkpoint The checkpoint
+     */
+    public void submit(Checkpoint checkpoint) {
+        executor.execute(() -> {
+            try {
+                CheckpointCodec.write(checkpoint, file);
+                log.info("Checkpoint of generation {} written to {}", checkpoint.getGeneration(), file);
+            } catch (Exception e) {
+                log.error("Could not write the checkpoint of generation {}", checkpoint.getGeneration(), e);
+            }
+        });
+    }
+
+    /**
+     * Wait for the submitted checkpoints to be written
+     */
+    @Override
+    public void close() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+    }
+}
@@ -0,0 +1,212 @@
+package be.floshie.neat.dataset;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A supervised training set memory-mapped from a binary columnar file. The samples are never parsed nor copied to the
+ * heap as a whole: every column is a view on the mapped file, and the samples are read in chunks straight into the
+ * column-major batches of {@link be.floshie.neat.ai.CompiledNeuralNetwork#evaluateColumns}. The pages are shared by
+ * every thread and loaded by the OS on demand, so a dataset larger than the heap can be evaluated.
+ * <p>
+ * The file is little-endian and every column is 8-byte aligned:
+ * <pre>
+ * int magic, short version, short padding
+ * int inputCount, int outputCount, long sampleCount
+ * double[sampleCount] * inputCount          the input columns
+ * double[sampleCount] * outputCount         the expected output columns
+ * </pre>
+ * A column is mapped on its own, so a dataset can hold up to {@link Integer#MAX_VALUE} / 8 samples.
+ */
+public class Dataset {
+    static final int MAGIC = 0x4E445354; // NDST
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = 24;
+    static final int MAX_SAMPLES = Integer.MAX_VALUE / Double.BYTES;
+
+    @Getter
+    private final int inputCount;
+
+    @Getter
+    private final int outputCount;
+
+    @Getter
+    private final int sampleCount;
+
+    private final DoubleBuffer[] inputs;
+    private final DoubleBuffer[] outputs;
+
+    private Dataset(DoubleBuffer[] inputs, DoubleBuffer[] outputs, int sampleCount) {
+        this.inputCount = inputs.length;
+        this.outputCount = outputs.length;
+        this.sampleCount = sampleCount;
+        this.inputs = inputs;
+        this.outputs = outputs;
+    }
+
+    /**
+     * Map a dataset file. The mapping outlives the file channel, it is released when the dataset is collected.
+     * @param file The dataset file
+     * @return The dataset
+     * @throws IOException If the file cannot be read or is not a dataset
+     */
+    public static Dataset open(Path file) throws IOException {
+        try (val channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_SIZE)
+                throw new IOException("Not a dataset file: " + file);
+
+            val header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC)
+                throw new IOException("Not a dataset file: " + file);
+
+            val version = header.getShort();
+            if (version != VERSION)
+                throw new IOException("Unsupported dataset version " + version + ": " + file);
+
+            header.getShort();
+            val inputCount = header.getInt();
+            val outputCount = header.getInt();
+            val sampleCount = header.getLong();
+            if (inputCount < 0 || outputCount < 0 || sampleCount < 0 || sampleCount > MAX_SAMPLES)
+                throw new IOException("Corrupted dataset header: " + file);
+
+            val columnSize = sampleCount * Double.BYTES;
+            if (channel.size() < HEADER_SIZE + (inputCount + (long) outputCount) * columnSize)
+                throw new IOException("Truncated dataset: " + file);
+
+            val inputs = new DoubleBuffer[inputCount];
+            val outputs = new DoubleBuffer[outputCount];
+            long offset = HEADER_SIZE;
+            for (int i = 0; i < inputCount; i++, offset += columnSize)
+                inputs[i] = column(channel, offset, columnSize);
+            for (int o = 0; o < outputCount; o++, offset += columnSize)
+                outputs[o] = column(channel, offset, columnSize);
+
+            return new Dataset(inputs, outputs, (int) sampleCount);
+        }
+    }
+
+    private static DoubleBuffer column(FileChannel channel, long offset, long size) throws IOException {
+        return channel.map(FileChannel.MapMode.READ_ONLY, offset, size)
+            .order(ByteOrder.LITTLE_ENDIAN)
+            .asDoubleBuffer();
+    }
+
+    /**
+     * Wrap in-memory samples, typically for small datasets and tests
+     * @param inputs The inputs of every sample, row-major
+     * @param outputs The expected outputs of every sample, row-major
+     * @return The dataset
+     */
+    public static Dataset of(double[][] inputs, double[][] outputs) {
+        if (inputs.length != outputs.length)
+            throw new IllegalArgumentException("Expected as many outputs as inputs, got " + outputs.length
+                + " and " + inputs.length);
+
+        val sampleCount = inputs.length;
+        val inputCount = sampleCount == 0 ? 0 : inputs[0].length;
+        val outputCount = sampleCount == 0 ? 0 : outputs[0].length;
+        return new Dataset(columns(inputs, inputCount), columns(outputs, outputCount), sampleCount);
+    }
+
+    private static DoubleBuffer[] columns(double[][] rows, int count) {
+        val columns = new DoubleBuffer[count];
+        for (int c = 0; c < count; c++) {
+            val column = new double[rows.length];
+            for (int k = 0; k < rows.length; k++)
+                column[k] = rows[k][c];
+            columns[c] = DoubleBuffer.wrap(column);
+        }
+        return columns;
+    }
+
+    /**
+     * Copy a chunk of samples into column-major arrays. Only absolute reads are used, so the dataset can be read by
+     * several threads at once.
+     * @param from The index of the first sample
+     * @param count The number of samples
+     * @param inputs The array receiving the inputs: the values of the i-th input start at {@code i * count}
+     * @param expected The array receiving the expected outputs: the values of the o-th output start at
+     *                 {@code o * count}
+     */
+    public void read(int from, int count, double[] inputs, double[] expected) {
+        for (int i = 0; i < inputCount; i++)
+            this.inputs[i].get(from, inputs, i * count, count);
+        for (int o = 0; o < outputCount; o++)
+            this.outputs[o].get(from, expected, o * count, count);
+    }
+
+    /**
+     * @param sample The index of the sample
+     * @param input The index of the input
+     * @return The value of an input of a sample
+     */
+    public double input(int sample, int input) {
+        return inputs[input].get(sample);
+    }
+
+    /**
+     * @param sample The index of the sample
+     * @param output The index of the output
+     * @return The expected value of an output of a sample
+     */
+    public double expected(int sample, int output) {
+        return outputs[output].get(sample);
+    }
+
+    /**
+     * Write samples to a dataset file, replacing its content
+     * @param file The file
+     * @param inputs The inputs of every sample, row-major
+     * @param outputs The expected outputs of every sample, row-major
+     * @throws IOException If the file cannot be written
+     */
+    public static void write(Path file, double[][] inputs, double[][] outputs) throws IOException {
+        val dataset = of(inputs, outputs);
+        try (val channel = FileChannel.open(
+            file,
+            StandardOpenOption.CREATE,
+            StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING
+        )) {
+            val header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN)
+                .putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) 0)
+                .putInt(dataset.inputCount)
+                .putInt(dataset.outputCount)
+                .putLong(dataset.sampleCount)
+                .flip();
+            writeFully(channel, header);
+
+            val buffer = ByteBuffer.allocate(1 << 16).order(ByteOrder.LITTLE_ENDIAN);
+            for (val column : dataset.inputs)
+                writeColumn(channel, column, buffer);
+            for (val column : dataset.outputs)
+                writeColumn(channel, column, buffer);
+        }
+    }
+
+    private static void writeColumn(FileChannel channel, DoubleBuffer column, ByteBuffer buffer) throws IOException {
+        for (int k = 0; k < column.limit(); k++) {
+            if (buffer.remaining() < Double.BYTES)
+                writeFully(channel, buffer.flip());
+            buffer.putDouble(column.get(k));
+        }
+        writeFully(channel, buffer.flip());
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining())
+            channel.write(buffer);
+        buffer.clear();
+    }
+}
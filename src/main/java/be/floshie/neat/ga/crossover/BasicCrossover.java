@@ -1,103 +1,122 @@
 package be.floshie.neat.ga.crossover;
 
 import be.floshie.neat.ai.AdvancedNeuralNetwork;
-import be.floshie.neat.ai.graph.Axon;
-import be.floshie.neat.ai.graph.Neuron;
+import be.floshie.neat.ai.GeneArray;
 import be.floshie.neat.ga.Individual;
-import be.floshie.neat.ga.fitness.IFitness;
+import be.floshie.neat.ga.fitness.FitnessTable;
 import be.floshie.neat.ga.selection.ISelection;
-import io.vavr.Function1;
-import io.vavr.collection.HashSet;
-import io.vavr.collection.List;
-import io.vavr.collection.Set;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
+import org.jgrapht.graph.GraphCycleProhibitedException;
 
-import java.util.function.Consumer;
-import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 
 @Slf4j
 @RequiredArgsConstructor
 public class BasicCrossover implements CrossoverStrategy {
     private final double crossoverRate;
-    private final IFitness fitnessFn;
     private final ISelection selection;
 
     @Override
-    public Individual crossover(List<Individual> individuals) {
-        val parent1 = selection.select(individuals);
-        val parent2 = selection.select(individuals);
+    public Individual crossover(FitnessTable fitnesses, RandomGenerator random) {
+        val parent1 = selection.select(fitnesses, random);
+        val parent2 = selection.select(fitnesses, random);
+        return crossover(fitnesses, parent1, parent2, random);
+    }
 
-        val fitness1 = fitnessFn.getFitnesses(individuals).get(parent1).get();
-        val fitness2 = fitnessFn.getFitnesses(individuals).get(parent2).get();
+    @Override
+    public Individual crossover(FitnessTable fitnesses, int offspring, RandomGenerator random) {
+        val parent1 = selection.select(fitnesses, 2 * offspring, random);
+        val parent2 = selection.select(fitnesses, 2 * offspring + 1, random);
+        return crossover(fitnesses, parent1, parent2, random);
+    }
 
+    /**
+     * Create an offspring from two selected parents. The neurons of both parents are kept. The genes of both parents
+     * are walked in innovation order: for each matching gene, one of the two parents' axons is randomly picked, and
+     * the remaining genes are only kept if they come from the best parent.
+     * @param fitnesses The fitness table of the generation
+     * @param parent1 The first parent
+     * @param parent2 The second parent
+     * @param random The random generator to draw from
+     * @return The offspring
+     */
+    private Individual crossover(
+        FitnessTable fitnesses,
+        Individual parent1,
+        Individual parent2,
+        RandomGenerator random
+    ) {
+        val fitness1 = fitnesses.getFitnessOf(parent1);
+        val fitness2 = fitnesses.getFitnessOf(parent2);
+
+        val ann1 = parent1.getAdvancedNeuralNetwork();
+        val ann2 = parent2.getAdvancedNeuralNetwork();
         val ann = AdvancedNeuralNetwork.empty();
 
-        val neurons1 = getNeurons(parent1);
-        val neurons2 = getNeurons(parent2);
-
-        val neuronUnion = neurons1.union(neurons2);
-        neuronUnion.forEach(ann::addVertex);
-
-        val best = fitness1 > fitness2 ? parent1 : parent2;
-
-        val innovationNumbers1 = getInnovationNumbers(parent1);
-        val innovationNumbers2 = getInnovationNumbers(parent2);
-
-        // We keep the innovation numbers that are in both parents
-        // For each innovation number, we randomly pick one of the two parents' axons
-        val matchingInnovationNumbers = innovationNumbers1.intersect(innovationNumbers2);
-        matchingInnovationNumbers.forEach(addEdge(ann, () -> Math.random() < crossoverRate ? parent1 : parent2));
-
-        // We keep the remaining innovation numbers that are only in the best parent
-        val remainingInnovationNumbers =
-            best == parent1
-                ? innovationNumbers1.removeAll(matchingInnovationNumbers)
-                : innovationNumbers2.removeAll(matchingInnovationNumbers);
-
-        remainingInnovationNumbers.forEach(addEdge(ann, () -> best));
-
-        // Get the max neuron id
-        val maxNeuronId = neuronUnion.map(Neuron::getId).max().get();
-
-        // Get the max axon id
-        val maxAxonId = ann.edgeSet().stream().map(Axon::getInnovation).max(Integer::compareTo).get();
+        // Neurons are added parent by parent so the child keeps a stable neuron (and output) order
+        int maxNeuronId = -1;
+        for (val neuron : ann1.vertexSet()) {
+            ann.addVertex(neuron);
+            maxNeuronId = Math.max(maxNeuronId, neuron.getId());
+        }
+        for (val neuron : ann2.vertexSet()) {
+            ann.addVertex(neuron);
+            maxNeuronId = Math.max(maxNeuronId, neuron.getId());
+        }
+
+        val bestIsFirst = fitness1 > fitness2;
+
+        val genes1 = ann1.getGenes();
+        val genes2 = ann2.getGenes();
+
+        int i = 0;
+        int j = 0;
+        while (i < genes1.size() || j < genes2.size()) {
+            val innovation1 = i < genes1.size() ? genes1.innovation(i) : Integer.MAX_VALUE;
+            val innovation2 = j < genes2.size() ? genes2.innovation(j) : Integer.MAX_VALUE;
+
+            if (innovation1 == innovation2) {
+                // We keep the innovation numbers that are in both parents, randomly picking one parent's axon
+                if (random.nextDouble() < crossoverRate)
+                    addGene(ann, ann1, genes1, i);
+                else
+                    addGene(ann, ann2, genes2, j);
+                i++;
+                j++;
+            } else if (innovation1 < innovation2) {
+                // We keep the remaining innovation numbers that are only in the best parent
+                if (bestIsFirst)
+                    addGene(ann, ann1, genes1, i);
+                i++;
+            } else {
+                if (!bestIsFirst)
+                    addGene(ann, ann2, genes2, j);
+                j++;
+            }
+        }
 
         // Set the neuron and axon ids
-        ann.setAxonId(maxAxonId + 1);
+        ann.setAxonId(ann.getGenes().maxInnovation() + 1);
         ann.setNeuronId(maxNeuronId + 1);
 
         return new Individual(ann);
     }
 
-    private Consumer<Integer> addEdge(AdvancedNeuralNetwork ann, Supplier<Individual> individualSupplier) {
-        return innovationNumber -> {
-            val individual = individualSupplier.get();
-
-            val axon = individual.getAdvancedNeuralNetwork().getEdge(innovationNumber);
-            val source = individual.getAdvancedNeuralNetwork().getEdgeSource(axon);
-            val target = individual.getAdvancedNeuralNetwork().getEdgeTarget(axon);
-
-            ann.addEdge(source, target, axon);
-        };
-    }
-
-    private Set<Integer> getInnovationNumbers(Individual individual) {
-        return individual
-            .getAdvancedNeuralNetwork()
-            .edgeSet()
-            .stream()
-            .map(Axon::getInnovation)
-            .sorted()
-            .collect(HashSet.collector());
-    }
-
-    private Set<Neuron> getNeurons(Individual individual) {
-        return individual
-            .getAdvancedNeuralNetwork()
-            .vertexSet()
-            .stream()
-            .collect(HashSet.collector());
+    /**
+     * Copy a gene of a parent into the offspring, with its weight
+     */
+    private void addGene(AdvancedNeuralNetwork ann, AdvancedNeuralNetwork parent, GeneArray genes, int index) {
+        val axon = genes.axon(index);
+        val source = parent.getEdgeSource(axon);
+        val target = parent.getEdgeTarget(axon);
+
+        try {
+            if (ann.addEdge(source, target, axon))
+                ann.setEdgeWeight(axon, genes.weight(index));
+        } catch (GraphCycleProhibitedException e) {
+            // Hidden neurons of both parents can close a cycle once merged, the gene is dropped
+        }
     }
 }
@@ -1,8 +1,28 @@
 package be.floshie.neat.ga.crossover;
 
 import be.floshie.neat.ga.Individual;
-import io.vavr.collection.List;
+import be.floshie.neat.ga.fitness.FitnessTable;
+
+import java.util.random.RandomGenerator;
 
 public interface CrossoverStrategy {
-    Individual crossover(List<Individual> individuals);
+    /**
+     * Create an offspring from parents of the generation
+     * @param fitnesses The fitness table of the generation
+     * @param random The random generator to draw from
+     * @return The offspring, owning a new network
+     */
+    Individual crossover(FitnessTable fitnesses, RandomGenerator random);
+
+    /**
+     * Create the numbered offspring of the generation, its parents being the picks 2 * offspring and
+     * 2 * offspring + 1 of the selection
+     * @param fitnesses The fitness table of the generation
+     * @param offspring The number of the offspring in the generation
+     * @param random The random generator to draw from
+     * @return The offspring, owning a new network
+     */
+    default Individual crossover(FitnessTable fitnesses, int offspring, RandomGenerator random) {
+        return crossover(fitnesses, random);
+    }
 }
@@ -0,0 +1,139 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.dataset.Dataset;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.metrics.Metrics;
+import lombok.val;
+
+/**
+ * A supervised fitness over a {@link Dataset}: the raw fitness is {@code 1 / (1 + loss)}, the loss being averaged over
+ * every output of every sample. The samples are evaluated in chunks through the column-major batch path of the compiled
+ * network, so the memory used per thread only depends on the chunk size and not on the size of the dataset.
+ * <p>
+ * With {@link Racing}, the evaluation stops after the first chunk whose accumulated loss proves that the individual
+ * cannot reach the threshold. The loss must then be non-negative. The cut off fitnesses are bounds, they are never
+ * cached.
+ */
+public class DatasetFitness extends SupervisedFitness {
+    /**
+     * The default number of samples evaluated in a single batch, small enough for the scratch buffer of a large
+     * network to stay in the cache
+     */
+    public static final int DEFAULT_CHUNK_SIZE = 1024;
+
+    private final Dataset dataset;
+    private final Loss loss;
+    private final int chunkSize;
+
+    /**
+     * The racing cutting the evaluations off, null to always evaluate every sample
+     */
+    private final Racing racing;
+
+    /**
+     * The buffers of the calling thread, holding a chunk of inputs, expected outputs and outputs
+     */
+    private final ThreadLocal<double[][]> buffers;
+
+    public DatasetFitness(
+        Dataset dataset,
+        Loss loss,
+        SpeciationAlgorithm speciationAlgorithm,
+        FitnessEvaluator evaluator,
+        FitnessCache cache,
+        Metrics metrics
+    ) {
+        this(dataset, loss, DEFAULT_CHUNK_SIZE, speciationAlgorithm, evaluator, cache, metrics);
+    }
+
+    public DatasetFitness(
+        Dataset dataset,
+        Loss loss,
+        int chunkSize,
+        SpeciationAlgorithm speciationAlgorithm,
+        FitnessEvaluator evaluator,
+        FitnessCache cache,
+        Metrics metrics
+    ) {
+        this(dataset, loss, chunkSize, null, speciationAlgorithm, evaluator, cache, metrics);
+    }
+
+    public DatasetFitness(
+        Dataset dataset,
+        Loss loss,
+        int chunkSize,
+        Racing racing,
+        SpeciationAlgorithm speciationAlgorithm,
+        FitnessEvaluator evaluator,
+        FitnessCache cache,
+        Metrics metrics
+    ) {
+        super(speciationAlgorithm, evaluator, cache, metrics);
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("The chunk size must be positive, got " + chunkSize);
+
+        this.dataset = dataset;
+        this.loss = loss;
+        this.racing = racing;
+        this.chunkSize = Math.max(1, Math.min(chunkSize, dataset.getSampleCount()));
+
+        val inputLength = this.chunkSize * dataset.getInputCount();
+        val outputLength = this.chunkSize * dataset.getOutputCount();
+        this.buffers = ThreadLocal.withInitial(() -> new double[][]{
+            new double[inputLength],
+            new double[outputLength],
+            new double[outputLength]
+        });
+    }
+
+    @Override
+    public double getRawFitness(Individual individual) {
+        getMetrics().recordEvaluation();
+        val network = individual.getAdvancedNeuralNetwork().compile(dataset.getInputCount());
+        if (network.getOutputSize() != dataset.getOutputCount())
+            throw new IllegalArgumentException("The network has " + network.getOutputSize()
+                + " outputs but the dataset has " + dataset.getOutputCount());
+
+        val sampleCount = dataset.getSampleCount();
+        val valueCount = (long) sampleCount * dataset.getOutputCount();
+        if (valueCount == 0)
+            return 1.0;
+
+        val buffer = buffers.get();
+        val inputs = buffer[0];
+        val expected = buffer[1];
+        val outputs = buffer[2];
+
+        double totalLoss = 0;
+        for (int from = 0; from < sampleCount; from += chunkSize) {
+            val count = Math.min(chunkSize, sampleCount - from);
+            dataset.read(from, count, inputs, expected);
+            network.evaluateColumns(inputs, count, outputs);
+            totalLoss += loss.sum(outputs, expected, count * dataset.getOutputCount());
+
+            // The loss of the remaining samples can only lower the fitness
+            val evaluated = from + count;
+            if (racing != null && evaluated < sampleCount) {
+                val upperBound = 1.0 / (1.0 + totalLoss / valueCount);
+                if (racing.isCutOff(upperBound)) {
+                    getMetrics().recordCutOff((double) (sampleCount - evaluated) / sampleCount);
+                    return upperBound;
+                }
+            }
+        }
+
+        return 1.0 / (1.0 + totalLoss / valueCount);
+    }
+
+    @Override
+    protected boolean isCacheable(double rawFitness) {
+        return racing == null || !racing.isCutOff(rawFitness);
+    }
+
+    @Override
+    protected void evaluated(double[] rawFitnesses) {
+        if (racing != null)
+            racing.update(rawFitnesses);
+    }
+}
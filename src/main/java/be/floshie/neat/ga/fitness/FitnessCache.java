@@ -0,0 +1,178 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ai.GenomeSignature;
+import be.floshie.neat.ga.Individual;
+import lombok.val;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.DoublePredicate;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * A bounded cache of raw fitnesses, keyed by the structural signature of the genomes so identical genomes are only
+ * evaluated once. The cache is split in segments, each one evicting its least recently used entries, so it can be
+ * shared by the threads evaluating a population. The fitness function is never called while holding a lock.
+ */
+public class FitnessCache {
+    private static final int SEGMENTS = 16;
+
+    private final int maximumSize;
+    private final Segment[] segments;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * Create a cache holding at most the given number of fitnesses
+     * @param maximumSize The maximum number of fitnesses, 0 to disable the cache
+     */
+    public FitnessCache(int maximumSize) {
+        this.maximumSize = Math.max(0, maximumSize);
+        this.segments = new Segment[SEGMENTS];
+
+        // Spread the capacity over the segments, the first ones hold the remainder so the total is the requested size
+        val segmentSize = this.maximumSize / SEGMENTS;
+        val remainder = this.maximumSize % SEGMENTS;
+        for (int i = 0; i < SEGMENTS; i++)
+            segments[i] = new Segment(i < remainder ? segmentSize + 1 : segmentSize);
+    }
+
+    /**
+     * Create a cache that never stores anything, every lookup is a miss
+     * @return The disabled cache
+     */
+    public static FitnessCache disabled() {
+        return new FitnessCache(0);
+    }
+
+    /**
+     * Get the fitness of an individual, computing and storing it if no identical genome was cached
+     * @param individual The individual
+     * @param fitnessFn The raw fitness function, it must be deterministic
+     * @return The fitness of the individual
+     */
+    public double get(Individual individual, ToDoubleFunction<Individual> fitnessFn) {
+        return get(individual, fitnessFn, fitness -> true);
+    }
+
+    /**
+     * Get the fitness of an individual, computing it if no identical genome was cached. A computed fitness is only
+     * stored if it is cacheable, typically to keep out a fitness that is only a bound.
+     * @param individual The individual
+     * @param fitnessFn The raw fitness function, it must be deterministic
+     * @param cacheable Whether a computed fitness can be stored
+     * @return The fitness of the individual
+     */
+    public double get(Individual individual, ToDoubleFunction<Individual> fitnessFn, DoublePredicate cacheable) {
+        if (maximumSize == 0) {
+            misses.increment();
+            return fitnessFn.applyAsDouble(individual);
+        }
+
+        val key = individual.getAdvancedNeuralNetwork().getSignature();
+        val segment = segmentFor(key);
+
+        Double cached;
+        synchronized (segment) {
+            cached = segment.get(key);
+        }
+
+        if (cached != null) {
+            hits.increment();
+            return cached;
+        }
+
+        misses.increment();
+        val fitness = fitnessFn.applyAsDouble(individual);
+        if (!cacheable.test(fitness))
+            return fitness;
+
+        synchronized (segment) {
+            segment.put(key, fitness);
+        }
+        return fitness;
+    }
+
+    /**
+     * Remove every cached fitness, the metrics are kept
+     */
+    public void clear() {
+        for (val segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * @return The number of cached fitnesses
+     */
+    public int size() {
+        int size = 0;
+        for (val segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return The number of lookups answered from the cache
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of lookups that had to compute the fitness
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of fitnesses evicted to respect the maximum size
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * @return The ratio of lookups answered from the cache, 0 if there was no lookup
+     */
+    public double getHitRate() {
+        val hits = getHits();
+        val total = hits + getMisses();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    private Segment segmentFor(GenomeSignature key) {
+        val hash = key.hashCode();
+        return segments[(hash ^ (hash >>> 16)) & (SEGMENTS - 1)];
+    }
+
+    /**
+     * A LRU map, iterated in access order and dropping its eldest entry once it is full
+     */
+    private class Segment extends LinkedHashMap<GenomeSignature, Double> {
+        private final int capacity;
+
+        Segment(int capacity) {
+            super(16, 0.75f, true);
+            this.capacity = capacity;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<GenomeSignature, Double> eldest) {
+            if (size() <= capacity)
+                return false;
+
+            evictions.increment();
+            return true;
+        }
+    }
+}
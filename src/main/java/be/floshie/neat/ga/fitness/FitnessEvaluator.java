@@ -0,0 +1,114 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Evaluates a raw fitness function over a whole population, either on the calling thread or split in chunks on an
+ * executor. The results are always returned in the order of the population, whatever the order in which the chunks
+ * complete.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class FitnessEvaluator implements AutoCloseable {
+    /**
+     * The executor running the chunks, null to evaluate on the calling thread
+     */
+    private final ExecutorService executor;
+
+    /**
+     * The number of chunks per available thread, more chunks balance the load better when evaluation costs vary
+     */
+    private final int chunksPerThread;
+
+    private final int parallelism;
+
+    /**
+     * Whether the executor was created by this evaluator and must be shut down with it
+     */
+    private final boolean ownsExecutor;
+
+    /**
+     * Create an evaluator running on the calling thread
+     * @return The sequential evaluator
+     */
+    public static FitnessEvaluator sequential() {
+        return new FitnessEvaluator(null, 1, 1, false);
+    }
+
+    /**
+     * Create an evaluator for CPU bound fitness functions, backed by its own fork-join pool
+     * @param parallelism The number of threads, 0 to use every available core and 1 to evaluate sequentially
+     * @return The evaluator
+     */
+    public static FitnessEvaluator of(int parallelism) {
+        if (parallelism == 1)
+            return sequential();
+
+        val threads = parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        return new FitnessEvaluator(new ForkJoinPool(threads), 4, threads, true);
+    }
+
+    /**
+     * Create an evaluator running every individual as its own task on the given executor. This is meant for I/O bound
+     * fitness functions, typically with a virtual thread per task executor. The executor is not shut down by the
+     * evaluator.
+     * @param executor The executor
+     * @return The evaluator
+     */
+    public static FitnessEvaluator on(ExecutorService executor) {
+        return new FitnessEvaluator(executor, Integer.MAX_VALUE, 1, false);
+    }
+
+    /**
+     * Evaluate the fitness function for every individual
+     * @param individuals The population
+     * @param fitnessFn The raw fitness function, it must be safe to call from several threads
+     * @return The fitness of every individual, in the order of the population
+     */
+    @SneakyThrows
+    public double[] evaluate(List<Individual> individuals, ToDoubleFunction<Individual> fitnessFn) {
+        val population = individuals.toJavaList();
+        val fitnesses = new double[population.size()];
+
+        if (executor == null) {
+            for (int i = 0; i < fitnesses.length; i++)
+                fitnesses[i] = fitnessFn.applyAsDouble(population.get(i));
+            return fitnesses;
+        }
+
+        val chunks = (int) Math.min(fitnesses.length, (long) parallelism * chunksPerThread);
+        val tasks = new ArrayList<Callable<Void>>(chunks);
+        for (int c = 0; c < chunks; c++) {
+            val from = (int) ((long) fitnesses.length * c / chunks);
+            val to = (int) ((long) fitnesses.length * (c + 1) / chunks);
+            tasks.add(() -> {
+                for (int i = from; i < to; i++)
+                    fitnesses[i] = fitnessFn.applyAsDouble(population.get(i));
+                return null;
+            });
+        }
+
+        // invokeAll waits for every chunk, get() rethrows the first failure
+        for (Future<Void> future : executor.invokeAll(tasks))
+            future.get();
+
+        return fitnesses;
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor)
+            executor.shutdown();
+    }
+}
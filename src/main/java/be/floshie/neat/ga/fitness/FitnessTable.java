@@ -0,0 +1,137 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import lombok.val;
+
+import java.util.HashMap;
+
+/**
+ * The fitness of every individual of a generation. It is computed once per generation and shared by the selection
+ * and the crossover, which look fitnesses up by index or by individual instead of re-running the fitness function.
+ * <p>
+ * The table must be invalidated once the generation is over, any later lookup fails instead of silently returning
+ * the fitness of a previous generation.
+ */
+public class FitnessTable {
+    private final List<Individual> individuals;
+    private final Individual[] byIndex;
+    private final double[] fitnesses;
+    private final java.util.Map<Individual, Integer> indices;
+
+    private volatile boolean valid = true;
+
+    private FitnessTable(List<Individual> individuals, Map<Individual, Double> fitnesses) {
+        this.individuals = individuals;
+        this.byIndex = individuals.toJavaList().toArray(new Individual[0]);
+        this.fitnesses = new double[byIndex.length];
+        this.indices = new HashMap<>(byIndex.length * 2);
+
+        for (int i = 0; i < byIndex.length; i++) {
+            val individual = byIndex[i];
+            this.fitnesses[i] = fitnesses.get(individual)
+                .getOrElseThrow(() -> new IllegalArgumentException("Missing fitness for " + individual));
+            this.indices.putIfAbsent(individual, i);
+        }
+    }
+
+    /**
+     * Compute the fitness of a generation
+     * @param fitnessFn The fitness function
+     * @param individuals The individuals of the generation
+     * @return The fitness table of the generation
+     */
+    public static FitnessTable of(IFitness fitnessFn, List<Individual> individuals) {
+        return new FitnessTable(individuals, fitnessFn.getFitnesses(individuals));
+    }
+
+    /**
+     * Create a fitness table from already computed fitnesses
+     * @param individuals The individuals of the generation, in order
+     * @param fitnesses The fitness of every individual
+     * @return The fitness table of the generation
+     */
+    public static FitnessTable of(List<Individual> individuals, Map<Individual, Double> fitnesses) {
+        return new FitnessTable(individuals, fitnesses);
+    }
+
+    /**
+     * @return The number of individuals in the generation
+     */
+    public int size() {
+        checkValid();
+        return byIndex.length;
+    }
+
+    /**
+     * @return The individuals of the generation, in order
+     */
+    public List<Individual> getIndividuals() {
+        checkValid();
+        return individuals;
+    }
+
+    /**
+     * @param index The index of the individual in the generation
+     * @return The individual
+     */
+    public Individual getIndividual(int index) {
+        checkValid();
+        return byIndex[index];
+    }
+
+    /**
+     * @param index The index of the individual in the generation
+     * @return The fitness of the individual
+     */
+    public double getFitness(int index) {
+        checkValid();
+        return fitnesses[index];
+    }
+
+    /**
+     * @param individual An individual of the generation
+     * @return The fitness of the individual
+     */
+    public double getFitnessOf(Individual individual) {
+        checkValid();
+        val index = indices.get(individual);
+        if (index == null)
+            throw new IllegalArgumentException("The individual is not part of this generation");
+
+        return fitnesses[index];
+    }
+
+    /**
+     * @return The individual with the highest fitness, the first one in case of a tie
+     */
+    public Individual getBest() {
+        checkValid();
+        int best = 0;
+        for (int i = 1; i < fitnesses.length; i++)
+            if (fitnesses[i] > fitnesses[best])
+                best = i;
+
+        return byIndex[best];
+    }
+
+    /**
+     * Mark the table as stale. Every lookup made after this call throws an {@link IllegalStateException}.
+     */
+    public void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * @return Whether the table still describes the current generation
+     */
+    public boolean isValid() {
+        return valid;
+    }
+
+    private void checkValid() {
+        if (!valid)
+            throw new IllegalStateException("The fitness table belongs to a previous generation");
+    }
+}
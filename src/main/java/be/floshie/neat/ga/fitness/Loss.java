@@ -0,0 +1,17 @@
+package be.floshie.neat.ga.fitness;
+
+/**
+ * A loss function comparing the outputs of a network to the expected ones, see {@link StandardLoss} for the usual ones
+ */
+@FunctionalInterface
+public interface Loss {
+    /**
+     * Compute the summed loss of a batch. The loss is summed rather than averaged so a dataset evaluated in chunks
+     * sums to the same total.
+     * @param predicted The outputs of the network
+     * @param expected The expected outputs, laid out as the predicted ones
+     * @param length The number of values to compare
+     * @return The sum of the loss of every value, never negative for a loss used with {@link Racing}
+     */
+    double sum(double[] predicted, double[] expected, int length);
+}
@@ -0,0 +1,72 @@
+package be.floshie.neat.ga.fitness;
+
+import lombok.Getter;
+import lombok.val;
+
+import java.util.Arrays;
+
+/**
+ * Decides when the evaluation of an individual can stop early. The raw fitness is computed in chunks and, as long as
+ * the loss is non-negative, the loss of the chunks evaluated so far bounds the fitness from above. Once that bound
+ * falls below the threshold, the individual cannot rank among the k best and its evaluation is cut off.
+ * <p>
+ * The threshold is the k-th best raw fitness of the previous generation. It only changes between two generations, so
+ * which evaluations are cut off does not depend on the threads evaluating them. An individual cut off is given its
+ * bound instead of its exact fitness: the individuals above the threshold keep their exact fitness and their ranks,
+ * only the order of the ones below it is approximated.
+ */
+public class Racing {
+    /**
+     * The rank k of the fitness to beat
+     */
+    @Getter
+    private final int rank;
+
+    /**
+     * The raw fitness an individual must be able to reach to be fully evaluated, negative infinity before the first
+     * generation
+     */
+    @Getter
+    private volatile double threshold = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param rank The rank k of the fitness to beat, at least 1
+     */
+    public Racing(int rank) {
+        if (rank < 1)
+            throw new IllegalArgumentException("The racing rank must be at least 1, got " + rank);
+        this.rank = rank;
+    }
+
+    /**
+     * Replace the threshold, typically to resume a run
+     * @param threshold The threshold of the next generation
+     */
+    public void restore(double threshold) {
+        this.threshold = threshold;
+    }
+
+    /**
+     * @param upperBound An upper bound of the raw fitness of an individual
+     * @return Whether the evaluation of the individual can be cut off
+     */
+    public boolean isCutOff(double upperBound) {
+        return upperBound < threshold;
+    }
+
+    /**
+     * Set the threshold of the next generation to the k-th best raw fitness of the current one. There is no threshold
+     * while the generation has fewer than k individuals.
+     * @param rawFitnesses The raw fitness of every individual of the generation
+     */
+    public void update(double[] rawFitnesses) {
+        if (rawFitnesses.length < rank) {
+            threshold = Double.NEGATIVE_INFINITY;
+            return;
+        }
+
+        val sorted = rawFitnesses.clone();
+        Arrays.sort(sorted);
+        threshold = sorted[sorted.length - rank];
+    }
+}
@@ -0,0 +1,36 @@
+package be.floshie.neat.ga.fitness;
+
+public enum StandardLoss implements Loss {
+    /**
+     * The squared error, for regression
+     */
+    MEAN_SQUARED_ERROR {
+        @Override
+        public double sum(double[] predicted, double[] expected, int length) {
+            double sum = 0;
+            for (int i = 0; i < length; i++) {
+                double error = expected[i] - predicted[i];
+                sum += error * error;
+            }
+            return sum;
+        }
+    },
+
+    /**
+     * The binary cross-entropy, for classification with expected outputs between 0 and 1. The predicted outputs are
+     * clamped away from 0 and 1 so an overconfident network gets a large but finite loss.
+     */
+    CROSS_ENTROPY {
+        @Override
+        public double sum(double[] predicted, double[] expected, int length) {
+            double sum = 0;
+            for (int i = 0; i < length; i++) {
+                double p = Math.min(Math.max(predicted[i], EPSILON), 1 - EPSILON);
+                sum -= expected[i] * Math.log(p) + (1 - expected[i]) * Math.log(1 - p);
+            }
+            return sum;
+        }
+    };
+
+    private static final double EPSILON = 1e-12;
+}
@@ -0,0 +1,78 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.metrics.Metrics;
+import be.floshie.neat.metrics.Phase;
+import io.vavr.Tuple;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import io.vavr.collection.Map;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+/**
+ * A fitness computed by comparing the outputs of each individual to expected ones. The raw fitnesses are computed by
+ * the evaluator through the cache, then shared within the species.
+ */
+@RequiredArgsConstructor
+public abstract class SupervisedFitness implements IFitness {
+    private final SpeciationAlgorithm speciationAlgorithm;
+    private final FitnessEvaluator evaluator;
+    private final FitnessCache cache;
+
+    @Getter(AccessLevel.PROTECTED)
+    private final Metrics metrics;
+
+    /**
+     * The raw fitnesses of the last evaluated generation, before fitness sharing. Unlike the shared fitnesses, they
+     * do not depend on the size of the species, so the best individual of the run is picked from them.
+     */
+    @Getter
+    private volatile FitnessTable rawFitnesses = FitnessTable.of(List.empty(), HashMap.empty());
+
+    @Override
+    public Map<Individual, Double> getFitnesses(List<Individual> individuals) {
+        val fitnessStart = metrics.start();
+        val basicFitnesses = evaluator.evaluate(
+            individuals,
+            individual -> cache.get(individual, this::getRawFitness, this::isCacheable)
+        );
+        evaluated(basicFitnesses);
+        val fitnesses = individuals
+            .zipWithIndex()
+            .toLinkedMap(it -> Tuple.of(it._1, basicFitnesses[it._2]));
+        rawFitnesses = FitnessTable.of(individuals, fitnesses);
+        metrics.record(Phase.FITNESS, fitnessStart);
+
+        val speciationStart = metrics.start();
+        val adjustedFitnesses = speciationAlgorithm.adjustFitness(fitnesses);
+        metrics.record(Phase.SPECIATION, speciationStart);
+        return adjustedFitnesses;
+    }
+
+    /**
+     * Compute the raw fitness of an individual, without fitness sharing nor cache. It is called from several threads
+     * at once when the evaluator is parallel.
+     * @param individual The individual
+     * @return The raw fitness, between 0 and 1
+     */
+    public abstract double getRawFitness(Individual individual);
+
+    /**
+     * @param rawFitness A raw fitness returned by {@link #getRawFitness(Individual)}
+     * @return Whether the raw fitness is exact and can be cached
+     */
+    protected boolean isCacheable(double rawFitness) {
+        return true;
+    }
+
+    /**
+     * Called once the raw fitnesses of a generation are computed, before they are shared
+     * @param rawFitnesses The raw fitness of every individual, in population order
+     */
+    protected void evaluated(double[] rawFitnesses) {
+    }
+}
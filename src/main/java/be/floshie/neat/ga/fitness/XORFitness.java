@@ -2,51 +2,58 @@ package be.floshie.neat.ga.fitness;
 
 import be.floshie.neat.ga.Individual;
 import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
-import io.vavr.Function1;
-import io.vavr.collection.List;
-import io.vavr.collection.Map;
-import lombok.RequiredArgsConstructor;
+import be.floshie.neat.metrics.Metrics;
 import lombok.val;
 
-@RequiredArgsConstructor
-public class XORFitness implements IFitness {
-    private final SpeciationAlgorithm speciationAlgorithm;
+public class XORFitness extends SupervisedFitness {
+    /**
+     * The four XOR samples, row-major, fed to the network as a single batch
+     */
+    private static final double[] INPUTS = {
+        0.0, 0.0,
+        0.0, 1.0,
+        1.0, 0.0,
+        1.0, 1.0
+    };
+
+    private static final double[] EXPECTED_OUTPUTS = {
+        0.0,
+        1.0,
+        1.0,
+        0.0
+    };
+
+    public XORFitness(SpeciationAlgorithm speciationAlgorithm) {
+        this(speciationAlgorithm, FitnessEvaluator.sequential(), FitnessCache.disabled());
+    }
 
-    @Override
-    public Map<Individual, Double> getFitnesses(List<Individual> individuals) {
-        val fitnesses = individuals.toMap(it -> it, this::getBasicFitness);
-        return speciationAlgorithm.adjustFitness(fitnesses);
+    public XORFitness(SpeciationAlgorithm speciationAlgorithm, FitnessEvaluator evaluator, FitnessCache cache) {
+        this(speciationAlgorithm, evaluator, cache, new Metrics());
     }
 
-    private double getBasicFitness(Individual in) {
-        Function1<Individual, Double> fn = individual -> {
-            List<List<Double>> inputs = List.of(
-                List.of(0.0, 0.0),
-                List.of(0.0, 1.0),
-                List.of(1.0, 0.0),
-                List.of(1.0, 1.0)
-            );
-
-            List<Double> expectedOutputs = List.of(
-                0.0,
-                1.0,
-                1.0,
-                0.0
-            );
-
-            val actualOutputs = inputs.map(individual.getAdvancedNeuralNetwork()::feedForward)
-                .map(List::head);
-
-            double sumSquaredError = 0.0;
-            for (int i = 0; i < expectedOutputs.size(); i++) {
-                double error = expectedOutputs.get(i) - actualOutputs.get(i);
-                sumSquaredError += Math.pow(error, 2);
-            }
-
-            val mse = sumSquaredError / expectedOutputs.size();
-            return 1.0 / (1.0 + mse);
-        };
-
-        return Function1.of(fn).memoized().apply(in);
+    public XORFitness(
+        SpeciationAlgorithm speciationAlgorithm,
+        FitnessEvaluator evaluator,
+        FitnessCache cache,
+        Metrics metrics
+    ) {
+        super(speciationAlgorithm, evaluator, cache, metrics);
+    }
+
+    @Override
+    public double getRawFitness(Individual individual) {
+        getMetrics().recordEvaluation();
+        val actualOutputs = individual.getAdvancedNeuralNetwork()
+            .feedForwardBatch(INPUTS, EXPECTED_OUTPUTS.length);
+        val outputSize = actualOutputs.length / EXPECTED_OUTPUTS.length;
+
+        double sumSquaredError = 0.0;
+        for (int i = 0; i < EXPECTED_OUTPUTS.length; i++) {
+            double error = EXPECTED_OUTPUTS[i] - actualOutputs[i * outputSize];
+            sumSquaredError += error * error;
+        }
+
+        val mse = sumSquaredError / EXPECTED_OUTPUTS.length;
+        return 1.0 / (1.0 + mse);
     }
 }
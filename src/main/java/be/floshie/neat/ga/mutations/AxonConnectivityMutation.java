@@ -1,46 +1,45 @@
 package be.floshie.neat.ga.mutations;
 
-import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 
+import java.util.random.RandomGenerator;
+
 @RequiredArgsConstructor
 public class AxonConnectivityMutation implements MutationStrategy {
+    @Getter
     private final double mutationRate;
 
     /**
-     * Mutate the individual by enabling or disabling a random axon.
+     * Mutate the network by enabling or disabling a random axon.
      * The process is done by randomly selecting an axon and then toggling its enabled state.
      * If the axon was enabled, it is disabled and vice versa.
-     * @param individual The individual to mutate
-     * @return The mutated individual
+     * @param network The network to mutate
+     * @param random The random generator to draw from
      */
     @Override
-    public Individual mutate(Individual individual) {
-        if (Math.random() > mutationRate)
-            return individual;
-
-        val network = individual.getAdvancedNeuralNetwork();
-        val newNetwork = individual.getAdvancedNeuralNetwork().copy();
+    public void apply(AdvancedNeuralNetwork network, RandomGenerator random) {
+        if (network.edgeSet().isEmpty())
+            return;
 
-        val randomEdge = newNetwork.edgeSet()
+        val randomEdge = network.edgeSet()
             .stream()
             .toList()
-            .get((int) (Math.random() * newNetwork.edgeSet().size()));
+            .get(random.nextInt(network.edgeSet().size()));
 
         val edgeSource = network.getEdgeSource(randomEdge);
         val edgeTarget = network.getEdgeTarget(randomEdge);
         val edgeWeight = network.getEnabledEdgeWeight(randomEdge);
 
-        newNetwork.removeEdge(randomEdge);
-        newNetwork.addEdge(
+        network.removeEdge(randomEdge);
+        network.addEdge(
             edgeSource,
             edgeTarget,
             randomEdge.withEnabled(!randomEdge.isEnabled())
         );
 
-        newNetwork.setEdgeWeight(randomEdge, edgeWeight);
-
-        return individual.withAdvancedNeuralNetwork(newNetwork);
+        network.setEdgeWeight(randomEdge, edgeWeight);
     }
 }
@@ -1,65 +1,95 @@
 package be.floshie.neat.ga.mutations;
 
-import be.floshie.neat.ga.Individual;
-import io.vavr.collection.List;
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.graph.Neuron;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import lombok.val;
-import org.jgrapht.graph.GraphCycleProhibitedException;
 
-import java.util.Objects;
+import java.util.random.RandomGenerator;
 
-@Slf4j
 @RequiredArgsConstructor
 public class AxonMutation implements MutationStrategy {
+    /**
+     * The number of random pairs of neurons tried before enumerating every pair. Sparse networks almost always find
+     * a free pair within a few draws, only dense networks need the enumeration.
+     */
+    private static final int MAX_ATTEMPTS = 16;
+
+    @Getter
     private final double mutationRate;
     private final double maxWeight;
     private final double minWeight;
 
     /**
-     * Mutates an individual by adding a new axon between two neurons. The weight of the axon is randomly generated
-     * between the min and max weight. The mutation rate determines the probability of this mutation happening.
+     * Mutates a network by adding a new axon between two neurons. The weight of the axon is randomly generated
+     * between the min and max weight.
+     * <p>
+     * The axon always goes from a neuron to a later one in the topological order of the network, so it can never
+     * create a cycle. The pairs are drawn at random among the neurons, which takes O(1) draws while the network is
+     * sparse, and enumerated only when the draws keep failing.
      *
-     * @param individual The individual to mutate
-     * @return The mutated individual
+     * @param network The network to mutate
+     * @param random The random generator to draw from
      */
     @Override
-    public Individual mutate(Individual individual) {
-        if (Math.random() > mutationRate) {
-            return individual;
-        }
+    public void apply(AdvancedNeuralNetwork network, RandomGenerator random) {
+        val neurons = network.topologicalOrder();
+        val n = neurons.length;
+        if (n < 2)
+            return;
 
-        val network = individual.getAdvancedNeuralNetwork();
-        val copiedNetwork = network.copy();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            val first = random.nextInt(n);
+            int second = random.nextInt(n - 1);
+            if (second >= first)
+                second++;
 
-        val neurons = List.ofAll(copiedNetwork.vertexSet());
+            val source = neurons[Math.min(first, second)];
+            val target = neurons[Math.max(first, second)];
+            if (canConnect(network, source, target)) {
+                connect(network, source, target, random);
+                return;
+            }
+        }
+
+        // Dense network: count the free forward pairs, then pick one of them
+        int count = 0;
+        for (int i = 0; i < n; i++)
+            for (int j = i + 1; j < n; j++)
+                if (canConnect(network, neurons[i], neurons[j]))
+                    count++;
 
-        val possibleAxons = neurons.crossProduct()
-            .toMap(t -> t, tuple -> copiedNetwork.getEdge(tuple._1(), tuple._2()))
-            .filterValues(Objects::isNull) // Filter out existing axons
-            .filterKeys(tuple -> !tuple._1().equals(tuple._2())) // Filter out self-connections
-            .filterKeys(tuple -> copiedNetwork.inDegreeOf(tuple._2()) != 0) // Filter out input neurons
-            .filterKeys(tuple -> copiedNetwork.outDegreeOf(tuple._1()) != 0) // Filter out output neurons
-            .filterKeys(tuple -> copiedNetwork.getEdge(tuple._2(), tuple._1()) == null); // Filter out existing reverse axons
+        if (count == 0)
+            return;
 
-        if (possibleAxons.isEmpty()) {
-            return individual;
+        int chosen = random.nextInt(count);
+        for (int i = 0; i < n; i++) {
+            for (int j = i + 1; j < n; j++) {
+                if (canConnect(network, neurons[i], neurons[j]) && chosen-- == 0) {
+                    connect(network, neurons[i], neurons[j], random);
+                    return;
+                }
+            }
         }
+    }
 
-        val axonToMutate = possibleAxons.keySet()
-            .toList()
-            .get((int) (Math.random() * possibleAxons.size()));
+    /**
+     * Check whether an axon can be added from a neuron to a later one: the source must not be an output neuron, the
+     * target must not be an input neuron and the neurons must not be connected yet
+     */
+    private static boolean canConnect(AdvancedNeuralNetwork network, Neuron source, Neuron target) {
+        return network.outDegreeOf(source) != 0
+            && network.inDegreeOf(target) != 0
+            && network.getEdge(source, target) == null;
+    }
 
-        try {
-            copiedNetwork.addAxon(
-                    axonToMutate._1(),
-                    axonToMutate._2(),
-                    Math.random() * (maxWeight - minWeight) + minWeight
-            );
-        } catch (GraphCycleProhibitedException e) {
-//            log.warn("Ignoring axon mutation because it would create a cycle");
-        }
+    private void connect(AdvancedNeuralNetwork network, Neuron source, Neuron target, RandomGenerator random) {
+        network.addAxon(source, target, random.nextDouble() * (maxWeight - minWeight) + minWeight);
+    }
 
-        return individual.withAdvancedNeuralNetwork(copiedNetwork);
+    @Override
+    public boolean isStructural() {
+        return true;
     }
 }
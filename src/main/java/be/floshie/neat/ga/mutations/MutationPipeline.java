@@ -0,0 +1,94 @@
+package be.floshie.neat.ga.mutations;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import io.vavr.Tuple;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A sequence of mutations applied to an individual as a batch. Every mutation first rolls against its own rate, then
+ * the network is copied once and all the selected mutations are applied in order to that single copy, instead of
+ * copying the network once per mutation.
+ */
+public class MutationPipeline {
+    private final List<MutationStrategy> mutations;
+
+    public MutationPipeline(MutationStrategy... mutations) {
+        this.mutations = List.of(mutations);
+    }
+
+    /**
+     * Mutate the individual. The given individual is never modified.
+     * @param individual The individual to mutate
+     * @param random The random generator to draw from
+     * @return The mutated individual, or the given individual if no mutation was selected
+     */
+    public Individual mutate(Individual individual, RandomGenerator random) {
+        return prepare(individual, random, false).complete();
+    }
+
+    /**
+     * Mutate the individual using the random generator of the current thread
+     * @param individual The individual to mutate
+     * @return The mutated individual, or the given individual if no mutation was selected
+     */
+    public Individual mutate(Individual individual) {
+        return mutate(individual, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Roll every mutation and apply the selected ones up to the first structural one right away. This part is safe to
+     * run concurrently. The first structural mutation and every selected mutation after it are deferred to
+     * {@link PendingMutation#complete()}, so the mutations are still applied in the order of the pipeline. It must be
+     * called in a deterministic order for a run to be reproducible (see {@link MutationStrategy#isStructural()}).
+     * @param individual The individual to mutate
+     * @param random The random generator to draw from, it is kept to complete the mutation
+     * @return The pending mutation
+     */
+    public PendingMutation prepare(Individual individual, RandomGenerator random) {
+        return prepare(individual, random, true);
+    }
+
+    private PendingMutation prepare(Individual individual, RandomGenerator random, boolean deferStructural) {
+        val selected = mutations.filter(mutation -> random.nextDouble() <= mutation.getMutationRate());
+        if (selected.isEmpty())
+            return new PendingMutation(individual, null, List.empty(), random);
+
+        val network = individual.getAdvancedNeuralNetwork().copy();
+        val split = deferStructural
+            ? selected.splitAt(MutationStrategy::isStructural)
+            : Tuple.of(selected, List.<MutationStrategy>empty());
+        split._1().forEach(mutation -> mutation.apply(network, random));
+
+        return new PendingMutation(individual, network, split._2(), random);
+    }
+
+    /**
+     * A mutation whose structural part has not been applied yet
+     */
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class PendingMutation {
+        private final Individual individual;
+        private final AdvancedNeuralNetwork network;
+        private final List<MutationStrategy> remaining;
+        private final RandomGenerator random;
+
+        /**
+         * Apply the remaining mutations
+         * @return The mutated individual, or the given individual if no mutation was selected
+         */
+        public Individual complete() {
+            if (network == null)
+                return individual;
+
+            remaining.forEach(mutation -> mutation.apply(network, random));
+            return individual.withAdvancedNeuralNetwork(network);
+        }
+    }
+}
@@ -2,7 +2,57 @@ package be.floshie.neat.ga.mutations;
 
 import be.floshie.neat.ai.AdvancedNeuralNetwork;
 import be.floshie.neat.ga.Individual;
+import lombok.val;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 public interface MutationStrategy {
-    Individual mutate(Individual individual);
+    /**
+     * @return The probability of the mutation being applied to an individual
+     */
+    double getMutationRate();
+
+    /**
+     * Apply the mutation to a network in place. The caller is responsible for owning the network, typically by
+     * copying it once before applying a batch of mutations (see {@link MutationPipeline}).
+     * @param network The network to mutate
+     * @param random The random generator to draw from
+     */
+    void apply(AdvancedNeuralNetwork network, RandomGenerator random);
+
+    /**
+     * Whether the mutation changes the structure of the network and therefore uses the
+     * {@link be.floshie.neat.ai.graph.InnovationRegistry}. The numbers handed out by the registry depend on the order
+     * of the requests, so structural mutations must be applied in a deterministic order for a run to be reproducible.
+     * @return True if the mutation adds neurons or axons
+     */
+    default boolean isStructural() {
+        return false;
+    }
+
+    /**
+     * Mutate the individual with the probability of the mutation rate. The network is copied only if the mutation
+     * is applied, the given individual is never modified.
+     * @param individual The individual to mutate
+     * @param random The random generator to draw from
+     * @return The mutated individual, or the given individual if the mutation was not applied
+     */
+    default Individual mutate(Individual individual, RandomGenerator random) {
+        if (random.nextDouble() > getMutationRate())
+            return individual;
+
+        val network = individual.getAdvancedNeuralNetwork().copy();
+        apply(network, random);
+        return individual.withAdvancedNeuralNetwork(network);
+    }
+
+    /**
+     * Mutate the individual using the random generator of the current thread
+     * @param individual The individual to mutate
+     * @return The mutated individual, or the given individual if the mutation was not applied
+     */
+    default Individual mutate(Individual individual) {
+        return mutate(individual, ThreadLocalRandom.current());
+    }
 }
@@ -2,46 +2,67 @@ package be.floshie.neat.ga.mutations;
 
 import be.floshie.neat.ai.ActivationFunction;
 import be.floshie.neat.ai.AdvancedNeuralNetwork;
-import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 
+import java.util.random.RandomGenerator;
+
 @RequiredArgsConstructor
 public class NeuronMutation implements MutationStrategy {
+    @Getter
     private final double mutationRate;
 
     /**
-     * Mutates the individual by adding a neuron between two existing neurons with an existing axon. The weight of the
+     * The activation function of the new neurons
+     */
+    private final ActivationFunction activationFunction;
+
+    public NeuronMutation(double mutationRate) {
+        this(mutationRate, ActivationFunction.SIGMOID);
+    }
+
+    /**
+     * Mutates the network by adding a neuron between two existing neurons with an existing axon. The weight of the
      * axon from the source to the new neuron is 1, the weight of the axon from the new neuron to the target is the
-     * weight of the axon that was split.
-     * @param individual
-     * @return
+     * weight of the axon that was split. The id of the new neuron is given by the {@link InnovationRegistry}, so
+     * splitting the same axon in the same generation creates the same neuron.
+     * @param network The network to mutate
+     * @param random The random generator to draw from
      */
     @Override
-    public Individual mutate(Individual individual) {
-        if (Math.random() > mutationRate)
-            return individual;
-
-        val network = individual.getAdvancedNeuralNetwork();
-        val copiedNetwork = network.copy();
+    public void apply(AdvancedNeuralNetwork network, RandomGenerator random) {
+        if (network.edgeSet().isEmpty())
+            return;
 
         // Get a random axon
-        val randomAxon = copiedNetwork
+        val randomAxon = network
                 .edgeSet()
                 .stream()
                 .toList()
-                .get((int) (Math.random() * copiedNetwork.edgeSet().size()));
+                .get(random.nextInt(network.edgeSet().size()));
 
         // Split the axon
-        val source = copiedNetwork.getEdgeSource(randomAxon);
-        val target = copiedNetwork.getEdgeTarget(randomAxon);
+        val source = network.getEdgeSource(randomAxon);
+        val target = network.getEdgeTarget(randomAxon);
+        val weight = network.getEdgeWeight(randomAxon);
 
-        copiedNetwork.removeEdge(randomAxon);
+        network.removeEdge(randomAxon);
 
-        val newNeuron = copiedNetwork.addNeuron(ActivationFunction.SIGMOID);
-        copiedNetwork.addAxon(source, newNeuron, 1);
-        copiedNetwork.addAxon(newNeuron, target, network.getEdgeWeight(randomAxon));
+        // The axon may have been split before in this generation and re-added since, the registered neuron is then
+        // already part of the network and a fresh one is created instead
+        val registry = InnovationRegistry.global();
+        val splitNeuronId = registry.neuronFor(randomAxon.getInnovation());
+        val neuronId = network.containsNeuron(splitNeuronId) ? registry.nextNeuronId() : splitNeuronId;
 
-        return individual.withAdvancedNeuralNetwork(copiedNetwork);
+        val newNeuron = network.addNeuron(neuronId, activationFunction);
+        network.addAxon(source, newNeuron, 1);
+        network.addAxon(newNeuron, target, weight);
+    }
+
+    @Override
+    public boolean isStructural() {
+        return true;
     }
 }
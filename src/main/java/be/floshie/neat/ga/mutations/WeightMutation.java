@@ -1,36 +1,33 @@
 package be.floshie.neat.ga.mutations;
 
-import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.val;
 
+import java.util.random.RandomGenerator;
+
 @RequiredArgsConstructor
 public class WeightMutation implements MutationStrategy {
+    @Getter
     private final double mutationRate;
     private final double nudgeMax;
     private final double nudgeMin;
 
     @Override
-    public Individual mutate(Individual individual) {
-        if (Math.random() > mutationRate) {
-            return individual;
-        }
-
-        val network = individual.getAdvancedNeuralNetwork();
-        // Create a new network
-        val copiedNetwork = network.copy();
+    public void apply(AdvancedNeuralNetwork network, RandomGenerator random) {
+        if (network.edgeSet().isEmpty())
+            return;
 
         // Choose a random axon to mutate
-        val randomAxon = copiedNetwork.edgeSet()
+        val randomAxon = network.edgeSet()
             .stream()
             .toList()
-            .get((int) (Math.random() * copiedNetwork.edgeSet().size()));
+            .get(random.nextInt(network.edgeSet().size()));
 
         val ancientWeight = network.getEdgeWeight(randomAxon);
 
         // Mutate the weight
-        copiedNetwork.setEdgeWeight(randomAxon, ancientWeight + (Math.random() * (nudgeMax - nudgeMin) + nudgeMin));
-
-        return individual.withAdvancedNeuralNetwork(copiedNetwork);
+        network.setEdgeWeight(randomAxon, ancientWeight + (random.nextDouble() * (nudgeMax - nudgeMin) + nudgeMin));
     }
 }
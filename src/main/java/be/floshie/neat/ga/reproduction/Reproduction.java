@@ -0,0 +1,158 @@
+package be.floshie.neat.ga.reproduction;
+
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.crossover.CrossoverStrategy;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.MutationPipeline.PendingMutation;
+import be.floshie.neat.metrics.Metrics;
+import be.floshie.neat.metrics.Phase;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import lombok.val;
+
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Breeds the offspring of a generation, in parallel when given several threads. Every offspring gets its own random
+ * generator, split from the generation's one in offspring order, so what an offspring draws does not depend on the
+ * thread that breeds it nor on the other offspring.
+ * <p>
+ * Selection, crossover and the non-structural mutations run concurrently. The structural mutations are then completed
+ * on the calling thread in offspring order, because the innovation numbers they are given depend on the order of the
+ * requests to the {@link be.floshie.neat.ai.graph.InnovationRegistry}. For a fixed seed, the offspring are therefore
+ * the same whatever the number of threads.
+ */
+@RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+public class Reproduction implements AutoCloseable {
+    private final CrossoverStrategy crossover;
+    private final MutationPipeline mutation;
+    private final Metrics metrics;
+
+    /**
+     * The executor breeding the chunks, null to breed on the calling thread
+     */
+    private final ExecutorService executor;
+
+    private final int parallelism;
+
+    /**
+     * Create a reproduction stage backed by its own fork-join pool
+     * @param crossover The crossover strategy, it must be safe to call from several threads
+     * @param mutation The mutation pipeline
+     * @param parallelism The number of threads, 0 to use every available core and 1 to breed sequentially
+     * @return The reproduction stage
+     */
+    public static Reproduction of(CrossoverStrategy crossover, MutationPipeline mutation, int parallelism) {
+        return of(crossover, mutation, parallelism, new Metrics());
+    }
+
+    /**
+     * Create a reproduction stage backed by its own fork-join pool, recording the time spent in crossover and mutation
+     * @param crossover The crossover strategy, it must be safe to call from several threads
+     * @param mutation The mutation pipeline
+     * @param parallelism The number of threads, 0 to use every available core and 1 to breed sequentially
+     * @param metrics The metrics of the run
+     * @return The reproduction stage
+     */
+    public static Reproduction of(
+        CrossoverStrategy crossover,
+        MutationPipeline mutation,
+        int parallelism,
+        Metrics metrics
+    ) {
+        if (parallelism == 1)
+            return new Reproduction(crossover, mutation, metrics, null, 1);
+
+        val threads = parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        return new Reproduction(crossover, mutation, metrics, new ForkJoinPool(threads), threads);
+    }
+
+    /**
+     * The random generator of a generation. It only depends on the seed of the run and on the generation number, so a
+     * generation can be replayed without replaying the ones before it.
+     * @param seed The seed of the run
+     * @param generation The generation number
+     * @return The random generator of the generation
+     */
+    public static SplittableRandom randomFor(long seed, int generation) {
+        // SplitMix64 finalizer, consecutive generations get unrelated streams
+        long z = seed + (generation + 1L) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    /**
+     * Breed the offspring of a generation
+     * @param fitnesses The fitness table of the generation
+     * @param count The number of offspring
+     * @param random The random generator of the generation
+     * @return The offspring, in a deterministic order
+     */
+    @SneakyThrows
+    public List<Individual> breed(FitnessTable fitnesses, int count, SplittableRandom random) {
+        val randoms = new SplittableRandom[count];
+        for (int i = 0; i < count; i++)
+            randoms[i] = random.split();
+
+        val pending = new PendingMutation[count];
+        if (executor == null || count <= 1) {
+            prepare(fitnesses, randoms, pending, 0, count);
+        } else {
+            val chunks = (int) Math.min(count, parallelism * 4L);
+            val tasks = new ArrayList<Callable<Void>>(chunks);
+            for (int c = 0; c < chunks; c++) {
+                val from = (int) ((long) count * c / chunks);
+                val to = (int) ((long) count * (c + 1) / chunks);
+                tasks.add(() -> {
+                    prepare(fitnesses, randoms, pending, from, to);
+                    return null;
+                });
+            }
+
+            // invokeAll waits for every chunk, get() rethrows the first failure
+            for (Future<Void> future : executor.invokeAll(tasks))
+                future.get();
+        }
+
+        val offspring = new Individual[count];
+        val completionStart = metrics.start();
+        for (int i = 0; i < count; i++)
+            offspring[i] = pending[i].complete();
+        metrics.record(Phase.MUTATION, completionStart);
+
+        return List.of(offspring);
+    }
+
+    private void prepare(
+        FitnessTable fitnesses,
+        SplittableRandom[] randoms,
+        PendingMutation[] pending,
+        int from,
+        int to
+    ) {
+        for (int i = from; i < to; i++) {
+            val crossoverStart = metrics.start();
+            val child = crossover.crossover(fitnesses, i, randoms[i]);
+            metrics.record(Phase.CROSSOVER, crossoverStart);
+
+            val mutationStart = metrics.start();
+            pending[i] = mutation.prepare(child, randoms[i]);
+            metrics.record(Phase.MUTATION, mutationStart);
+        }
+    }
+
+    @Override
+    public void close() {
+        if (executor != null)
+            executor.shutdown();
+    }
+}
@@ -0,0 +1,77 @@
+package be.floshie.neat.ga.selection;
+
+import lombok.val;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Vose's alias method: samples an index with a probability proportional to its weight in O(1), after an O(N) setup.
+ * Every index owns a column of height 1, split between itself and at most one alias.
+ */
+final class AliasTable {
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    private AliasTable(double[] probabilities, int[] aliases) {
+        this.probabilities = probabilities;
+        this.aliases = aliases;
+    }
+
+    /**
+     * @param weights The non-negative weight of every index, all indices are equally likely if every weight is 0
+     * @return The alias table
+     */
+    static AliasTable of(double[] weights) {
+        val n = weights.length;
+        val probabilities = new double[n];
+        val aliases = new int[n];
+
+        double total = 0;
+        for (val weight : weights)
+            total += weight;
+
+        // Scale the weights so their mean is 1, then pair every column under 1 with a column over 1
+        val scaled = new double[n];
+        val small = new int[n];
+        val large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = total > 0 ? weights[i] * n / total : 1;
+            if (scaled[i] < 1)
+                small[smallCount++] = i;
+            else
+                large[largeCount++] = i;
+        }
+
+        while (smallCount > 0 && largeCount > 0) {
+            val less = small[--smallCount];
+            val more = large[--largeCount];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1)
+                small[smallCount++] = more;
+            else
+                large[largeCount++] = more;
+        }
+
+        // The remaining columns are full, up to rounding errors
+        while (largeCount > 0)
+            probabilities[large[--largeCount]] = 1;
+        while (smallCount > 0)
+            probabilities[small[--smallCount]] = 1;
+
+        return new AliasTable(probabilities, aliases);
+    }
+
+    /**
+     * @param random The random generator to draw from
+     * @return A random index
+     */
+    int sample(RandomGenerator random) {
+        val column = random.nextInt(probabilities.length);
+        return random.nextDouble() < probabilities[column] ? column : aliases[column];
+    }
+}
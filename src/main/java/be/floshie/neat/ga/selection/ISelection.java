@@ -1,8 +1,29 @@
 package be.floshie.neat.ga.selection;
 
 import be.floshie.neat.ga.Individual;
-import io.vavr.collection.List;
+import be.floshie.neat.ga.fitness.FitnessTable;
+
+import java.util.random.RandomGenerator;
 
 public interface ISelection {
-    Individual select(List<Individual> individuals);
+    /**
+     * Select an individual of the generation
+     * @param fitnesses The fitness table of the generation
+     * @param random The random generator to draw from
+     * @return The selected individual
+     */
+    Individual select(FitnessTable fitnesses, RandomGenerator random);
+
+    /**
+     * Select an individual for a numbered pick of the generation. The picks of a generation are numbered from 0, so a
+     * selection spreading its picks over the generation, like stochastic universal sampling, knows which pick it
+     * makes whatever the thread making it. The other selections ignore the number.
+     * @param fitnesses The fitness table of the generation
+     * @param pick The number of the pick in the generation
+     * @param random The random generator to draw from
+     * @return The selected individual
+     */
+    default Individual select(FitnessTable fitnesses, int pick, RandomGenerator random) {
+        return select(fitnesses, random);
+    }
 }
@@ -0,0 +1,79 @@
+package be.floshie.neat.ga.selection;
+
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * A selection that precomputes a sampling structure once per generation, so every pick is cheap. The structure is
+ * built on the first pick of a fitness table and reused for every later pick of the same table. Building it only
+ * depends on the table, so concurrent picks may race to build it without changing what they select.
+ * @param <T> The type of the sampling structure
+ */
+public abstract class PreparedSelection<T> implements ISelection {
+    private volatile Prepared<T> prepared;
+
+    @Override
+    public final Individual select(FitnessTable fitnesses, RandomGenerator random) {
+        return fitnesses.getIndividual(select(prepared(fitnesses), random));
+    }
+
+    @Override
+    public final Individual select(FitnessTable fitnesses, int pick, RandomGenerator random) {
+        return fitnesses.getIndividual(select(prepared(fitnesses), pick, random));
+    }
+
+    private T prepared(FitnessTable fitnesses) {
+        var current = prepared;
+        if (current == null || current.fitnesses != fitnesses) {
+            current = new Prepared<>(fitnesses, prepare(fitnesses));
+            prepared = current;
+        }
+        return current.structure;
+    }
+
+    /**
+     * Build the sampling structure of a generation
+     * @param fitnesses The fitness table of the generation
+     * @return The sampling structure
+     */
+    protected abstract T prepare(FitnessTable fitnesses);
+
+    /**
+     * Pick an individual
+     * @param structure The sampling structure of the generation
+     * @param random The random generator to draw from
+     * @return The index of the picked individual in the fitness table
+     */
+    protected abstract int select(T structure, RandomGenerator random);
+
+    /**
+     * Pick an individual for a numbered pick of the generation, by default like an unnumbered pick
+     * @param structure The sampling structure of the generation
+     * @param pick The number of the pick in the generation
+     * @param random The random generator to draw from
+     * @return The index of the picked individual in the fitness table
+     */
+    protected int select(T structure, int pick, RandomGenerator random) {
+        return select(structure, random);
+    }
+
+    /**
+     * The non-negative fitness of every individual, negative fitnesses count as 0
+     */
+    static double[] weights(FitnessTable fitnesses) {
+        val weights = new double[fitnesses.size()];
+        for (int i = 0; i < weights.length; i++)
+            weights[i] = Math.max(0, fitnesses.getFitness(i));
+        return weights;
+    }
+
+    @RequiredArgsConstructor
+    private static class Prepared<T> {
+        private final FitnessTable fitnesses;
+        private final T structure;
+    }
+}
@@ -0,0 +1,21 @@
+package be.floshie.neat.ga.selection;
+
+import be.floshie.neat.ga.fitness.FitnessTable;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Fitness proportionate selection: an individual is picked with a probability proportional to its fitness. The
+ * roulette is an alias table, so a pick is O(1) after an O(N) setup per generation.
+ */
+public class RouletteSelection extends PreparedSelection<AliasTable> {
+    @Override
+    protected AliasTable prepare(FitnessTable fitnesses) {
+        return AliasTable.of(weights(fitnesses));
+    }
+
+    @Override
+    protected int select(AliasTable roulette, RandomGenerator random) {
+        return roulette.sample(random);
+    }
+}
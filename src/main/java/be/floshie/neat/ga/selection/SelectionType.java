@@ -0,0 +1,11 @@
+package be.floshie.neat.ga.selection;
+
+/**
+ * The selections that can be configured for a run
+ */
+public enum SelectionType {
+    TOURNAMENT,
+    ROULETTE,
+    RANK,
+    STOCHASTIC_UNIVERSAL_SAMPLING,
+}
@@ -0,0 +1,74 @@
+package be.floshie.neat.ga.selection;
+
+import be.floshie.neat.ga.fitness.FitnessTable;
+import lombok.RequiredArgsConstructor;
+import lombok.val;
+
+import java.util.SplittableRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * Stochastic universal sampling: N evenly spaced pointers, shifted by a single random offset, are laid over the
+ * cumulative fitnesses, so every individual owns the floor or the ceiling of its expected number of slots in the
+ * mating pool. The pool is built once per generation in O(N) and shuffled, then the pick number k takes the slot
+ * k modulo N: every N picks, each individual is picked exactly as many times as it owns slots.
+ * <p>
+ * The offset and the shuffle are drawn from the seed of the run mixed with the fitnesses of the generation, so the pool
+ * changes every generation but only depends on the fitness table, which keeps the selection deterministic when the
+ * offspring are bred concurrently. A pick without number draws a slot at random.
+ */
+@RequiredArgsConstructor
+public class StochasticUniversalSampling extends PreparedSelection<int[]> {
+    private final long seed;
+
+    @Override
+    protected int[] prepare(FitnessTable fitnesses) {
+        val weights = weights(fitnesses);
+        val n = weights.length;
+
+        long generationSeed = seed;
+        double total = 0;
+        for (val weight : weights) {
+            generationSeed = generationSeed * 31 + Double.doubleToLongBits(weight);
+            total += weight;
+        }
+        val random = new SplittableRandom(generationSeed);
+
+        val pool = new int[n];
+        if (total <= 0) {
+            for (int i = 0; i < n; i++)
+                pool[i] = i;
+        } else {
+            val spacing = total / n;
+            val offset = random.nextDouble() * spacing;
+            double cumulative = weights[0];
+            int individual = 0;
+            for (int slot = 0; slot < n; slot++) {
+                val pointer = offset + slot * spacing;
+                while (cumulative <= pointer && individual < n - 1)
+                    cumulative += weights[++individual];
+                pool[slot] = individual;
+            }
+        }
+
+        // Fisher-Yates, so consecutive picks do not walk the individuals in table order
+        for (int i = n - 1; i > 0; i--) {
+            val j = random.nextInt(i + 1);
+            val swap = pool[i];
+            pool[i] = pool[j];
+            pool[j] = swap;
+        }
+
+        return pool;
+    }
+
+    @Override
+    protected int select(int[] pool, RandomGenerator random) {
+        return pool[random.nextInt(pool.length)];
+    }
+
+    @Override
+    protected int select(int[] pool, int pick, RandomGenerator random) {
+        return pool[pick % pool.length];
+    }
+}
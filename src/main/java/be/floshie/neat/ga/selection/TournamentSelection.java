@@ -1,25 +1,35 @@
 package be.floshie.neat.ga.selection;
 
 import be.floshie.neat.ga.Individual;
-import be.floshie.neat.ga.fitness.IFitness;
-import io.vavr.Function1;
-import io.vavr.Tuple2;
-import io.vavr.collection.List;
+import be.floshie.neat.ga.fitness.FitnessTable;
 import lombok.RequiredArgsConstructor;
+import lombok.val;
 
+import java.util.random.RandomGenerator;
+
+/**
+ * Picks the fittest of tournamentSize contenders drawn uniformly, with replacement, from the generation. A pick only
+ * draws tournamentSize indices and reads their fitness, so it is O(k) and does not allocate.
+ */
 @RequiredArgsConstructor
 public class TournamentSelection implements ISelection {
-    private final IFitness fitnessFn;
     private final int tournamentSize;
 
     @Override
-    public Individual select(List<Individual> individuals) {
-        return individuals
-            .zip(fitnessFn.getFitnesses(individuals).values())
-            .shuffle()
-            .subSequence(0, tournamentSize)
-            .maxBy(Tuple2::_2)
-            .map(Tuple2::_1)
-            .get();
+    public Individual select(FitnessTable fitnesses, RandomGenerator random) {
+        val size = fitnesses.size();
+
+        int best = random.nextInt(size);
+        double bestFitness = fitnesses.getFitness(best);
+        for (int i = 1; i < tournamentSize; i++) {
+            val contender = random.nextInt(size);
+            val fitness = fitnesses.getFitness(contender);
+            if (fitness > bestFitness) {
+                best = contender;
+                bestFitness = fitness;
+            }
+        }
+
+        return fitnesses.getIndividual(best);
     }
 }
@@ -1,14 +1,13 @@
 package be.floshie.neat.ga.speciation;
 
-import be.floshie.neat.ai.AdvancedNeuralNetwork;
-import be.floshie.neat.ai.graph.Axon;
 import be.floshie.neat.ga.Individual;
-import io.vavr.Function1;
 import io.vavr.Tuple;
-import io.vavr.collection.HashMap;
 import io.vavr.collection.List;
 import io.vavr.collection.Map;
+import io.vavr.control.Option;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.val;
 
 
@@ -19,101 +18,195 @@ public class SpeciationAlgorithm {
     private final double c3;
     private final double dt;
 
+    /**
+     * Compute the compatibility distance between two individuals. Both genomes are sorted by innovation number, so
+     * matching, disjoint and excess genes are counted in a single merge walk, without allocating.
+     * @param i1 The first individual
+     * @param i2 The second individual
+     * @return The compatibility distance
+     */
     public double getDistance(Individual i1, Individual i2) {
-        val ann1 = i1.getAdvancedNeuralNetwork();
-        val ann2 = i2.getAdvancedNeuralNetwork();
+        val genes1 = i1.getAdvancedNeuralNetwork().getGenes();
+        val genes2 = i2.getAdvancedNeuralNetwork().getGenes();
+
+        val size1 = genes1.size();
+        val size2 = genes2.size();
+
+        // Genes beyond the smallest max innovation number are excess, the other non-matching genes are disjoint
+        val minMaxInnovation = Math.min(genes1.maxInnovation(), genes2.maxInnovation());
+
+        int matching = 0;
+        int nonMatching = 0;
+        int excess = 0;
+        double weightDifference = 0;
+
+        int i = 0;
+        int j = 0;
+        while (i < size1 && j < size2) {
+            val innovation1 = genes1.innovation(i);
+            val innovation2 = genes2.innovation(j);
+
+            if (innovation1 == innovation2) {
+                weightDifference += Math.abs(genes1.weight(i) - genes2.weight(j));
+                matching++;
+                i++;
+                j++;
+            } else if (innovation1 < innovation2) {
+                nonMatching++;
+                if (innovation1 > minMaxInnovation)
+                    excess++;
+                i++;
+            } else {
+                nonMatching++;
+                if (innovation2 > minMaxInnovation)
+                    excess++;
+                j++;
+            }
+        }
 
-        val allAxons = List.ofAll(ann1.edgeSet()).appendAll(ann2.edgeSet());
+        for (; i < size1; i++, nonMatching++)
+            if (genes1.innovation(i) > minMaxInnovation)
+                excess++;
 
-        val matchingAxons = getMatchingAxons(ann1, ann2);
-        val disjointAndExcessAxons = getDisjointAndExcessAxons(i1, i2);
-        val disjointAxons = disjointAndExcessAxons.filter(axon -> axon._2 == AxonType.DISJOINT).keySet();
-        val excessAxons = disjointAndExcessAxons.filter(axon -> axon._2 == AxonType.EXCESS).keySet();
+        for (; j < size2; j++, nonMatching++)
+            if (genes2.innovation(j) > minMaxInnovation)
+                excess++;
 
-        val N = allAxons.distinctBy(Axon::getInnovation).size();
-        val E = excessAxons.size();
-        val D = disjointAxons.size();
+        val N = matching + nonMatching;
+        if (N == 0)
+            return 0;
 
-        val W = matchingAxons.groupBy(Axon::getInnovation)
-            .map(axons -> axons._2.map(Axon::getWeight).toList())
-            .map(weights -> Math.abs(weights.get(0) - weights.get(1)))
-            .sum().doubleValue();
+        val E = excess;
+        val D = nonMatching - excess;
+        val W = weightDifference;
 
         return (c1 * E / N) + (c2 * D / N) + (c3 * W);
     }
 
     /**
-     * Adjust the fitness of each individual by applying the sharing function.
-     * Imagine having typealiases in Java...
+     * The species alive in the current generation, in order of creation
      */
-    private Function1<Map<Individual, Double>, Map<Individual, Double>> adjustFitnessFn = ((Function1<Map<Individual, Double>, Map<Individual, Double>>) individuals -> {
-        return individuals.map((individual, fitness) -> {
-            // For every other individual, we compute the distance, apply the sharing function and sum the results
-            val sum = individuals
-                .filter(it -> it._1 != individual)
-                .map(it -> sh(getDistance(individual, it._1)))
-                .sum()
-                .doubleValue();
-
-            return Tuple.of(individual, fitness / sum);
-        });
-    }).memoized();
+    @Getter
+    private List<Species> species = List.empty();
 
-    public Map<Individual, Double> adjustFitness(Map<Individual, Double> individuals) {
-        return adjustFitnessFn.apply(individuals);
-    }
+    private final java.util.Map<Individual, Species> speciesOf = new java.util.HashMap<>();
 
-    private int sh(double distance) {
-        return distance < dt ? 1 : 0;
-    }
+    private int nextSpeciesId = 0;
 
-    private List<Axon> getMatchingAxons(AdvancedNeuralNetwork ann1, AdvancedNeuralNetwork ann2) {
-        List<Axon> matchingAxons = List.empty();
-        for (val axon1 : ann1.edgeSet()) {
-            for (val axon2 : ann2.edgeSet()) {
-                if (axon1.getInnovation() == axon2.getInnovation()) {
-                    matchingAxons = matchingAxons.append(axon1);
-                    matchingAxons = matchingAxons.append(axon2);
+    /**
+     * Assign every individual to the first species whose representative is closer than the threshold, or to a new
+     * species if there is none. Each individual is only compared to the representatives, so this costs O(N * S)
+     * distances instead of O(N^2). Empty species are dropped and every remaining species gets as new representative
+     * its member closest to the previous one.
+     * @param individuals The individuals of the generation
+     * @return The species of the generation
+     */
+    public List<Species> speciate(Iterable<Individual> individuals) {
+        species.forEach(Species::clear);
+        speciesOf.clear();
+
+        for (val individual : individuals) {
+            Species target = null;
+            for (val candidate : species) {
+                if (getDistance(individual, candidate.getRepresentative()) < dt) {
+                    target = candidate;
+                    break;
                 }
             }
+
+            if (target == null) {
+                target = new Species(nextSpeciesId++, individual);
+                species = species.append(target);
+            }
+
+            target.add(individual);
+            speciesOf.put(individual, target);
         }
-        return matchingAxons;
+
+        species = species.filter(it -> !it.isEmpty());
+        species.forEach(this::updateRepresentative);
+
+        return species;
     }
 
-    enum AxonType {
-        DISJOINT,
-        EXCESS
+    /**
+     * Adjust the fitness of each individual by applying explicit fitness sharing: the individuals are speciated and
+     * the fitness of each one is divided by the size of its species. Every call advances the species by one
+     * generation, so it must be called once per generation.
+     * @param individuals The raw fitness of each individual
+     * @return The shared fitness of each individual
+     */
+    public Map<Individual, Double> adjustFitness(Map<Individual, Double> individuals) {
+        speciate(individuals.keySet());
+
+        for (val it : species) {
+            double best = Double.NEGATIVE_INFINITY;
+            for (val member : it.members())
+                best = Math.max(best, individuals.get(member).get());
+            it.recordGeneration(best);
+        }
+
+        return individuals.map((individual, fitness) ->
+            Tuple.of(individual, fitness / speciesOf.get(individual).size())
+        );
     }
 
-    // To get the disjoint and excess genes, we need to find the axons that are not matching
-    // Then, we need to know each individual's max innovation number
-    // The excess genes are the axons with an innovation number higher than the max innovation number of the other individual
-    // The disjoint genes are the axons with an innovation number that is lower than the minimum of the max innovation numbers of both individuals
-    private Map<Axon, AxonType> getDisjointAndExcessAxons(Individual i1, Individual i2) {
-        val ann1 = i1.getAdvancedNeuralNetwork();
-        val ann2 = i2.getAdvancedNeuralNetwork();
+    /**
+     * @param individual An individual of the current generation
+     * @return The species of the individual
+     */
+    public Option<Species> getSpecies(Individual individual) {
+        return Option.of(speciesOf.get(individual));
+    }
 
-        val maxInnovation1 = ann1.edgeSet().stream().map(Axon::getInnovation).max(Integer::compare).orElse(0);
-        val maxInnovation2 = ann2.edgeSet().stream().map(Axon::getInnovation).max(Integer::compare).orElse(0);
+    /**
+     * @return The number of species in the current generation
+     */
+    public int getSpeciesCount() {
+        return species.size();
+    }
 
-        val minMaxInnovation = Math.min(maxInnovation1, maxInnovation2);
-        val excessNeuralNetwork = maxInnovation1 > maxInnovation2 ? ann1 : ann2;
+    /**
+     * Capture the species carried to the next generation
+     * @return The state of the speciation
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(nextSpeciesId, species.map(Species::getState));
+    }
 
-        val matchingAxons = getMatchingAxons(ann1, ann2);
-        val nonMatchingAxons = List.ofAll(ann1.edgeSet()).appendAll(ann2.edgeSet()).removeAll(matchingAxons);
+    /**
+     * Replace the species with captured ones, typically to resume a run. The species have no member until the next
+     * speciation.
+     * @param snapshot The state to restore
+     */
+    public void restore(Snapshot snapshot) {
+        speciesOf.clear();
+        species = snapshot.getSpecies().map(Species::of);
+        nextSpeciesId = snapshot.getNextSpeciesId();
+    }
 
-        val disjointAxons = nonMatchingAxons
-            .filter(axon -> axon.getInnovation() <= minMaxInnovation)
-            .collect(List.collector());
+    private void updateRepresentative(Species target) {
+        val previous = target.getRepresentative();
 
-        val excessAxons = excessNeuralNetwork.edgeSet().stream()
-            .filter(axon -> axon.getInnovation() > minMaxInnovation)
-            .collect(List.collector());
+        Individual closest = null;
+        double closestDistance = Double.POSITIVE_INFINITY;
+        for (val member : target.members()) {
+            val distance = member == previous ? 0 : getDistance(member, previous);
+            if (distance < closestDistance) {
+                closest = member;
+                closestDistance = distance;
+            }
+        }
 
-        Map<Axon, AxonType> empty = HashMap.empty();
+        target.setRepresentative(closest);
+    }
 
-        return empty
-            .merge(disjointAxons.toMap(axon -> axon, axon -> AxonType.DISJOINT))
-            .merge(excessAxons.toMap(axon -> axon, axon -> AxonType.EXCESS));
+    /**
+     * The state of the speciation between two generations
+     */
+    @Value
+    public static class Snapshot {
+        int nextSpeciesId;
+        List<Species.State> species;
     }
 }
@@ -0,0 +1,137 @@
+package be.floshie.neat.ga.speciation;
+
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
+import lombok.Value;
+import lombok.val;
+
+import java.util.ArrayList;
+
+/**
+ * A species groups the individuals that are close to its representative. Species survive across generations: their
+ * members are reassigned every generation while they keep their id, their age and their fitness history.
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class Species {
+    @Getter
+    @ToString.Include
+    private final int id;
+
+    /**
+     * The individual new genomes are compared to when they are assigned to a species
+     */
+    @Getter
+    @Setter(AccessLevel.PACKAGE)
+    private Individual representative;
+
+    /**
+     * The number of generations the species has existed for
+     */
+    @Getter
+    @ToString.Include
+    private int age = 0;
+
+    /**
+     * The best raw fitness ever reached by a member of the species
+     */
+    @Getter
+    @ToString.Include
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    /**
+     * The age of the species when its best fitness was last improved
+     */
+    private int lastImprovedAge = 0;
+
+    private final ArrayList<Individual> members = new ArrayList<>();
+
+    Species(int id, Individual representative) {
+        this.id = id;
+        this.representative = representative;
+    }
+
+    /**
+     * Recreate a species from its state, without members
+     */
+    static Species of(State state) {
+        val species = new Species(state.getId(), state.getRepresentative());
+        species.age = state.getAge();
+        species.bestFitness = state.getBestFitness();
+        species.lastImprovedAge = state.getLastImprovedAge();
+        return species;
+    }
+
+    /**
+     * @return The state of the species carried to the next generation, its members excluded
+     */
+    public State getState() {
+        return new State(id, representative, age, bestFitness, lastImprovedAge);
+    }
+
+    /**
+     * @return The members of the species in the current generation
+     */
+    public List<Individual> getMembers() {
+        return List.ofAll(members);
+    }
+
+    /**
+     * @return The number of members of the species in the current generation
+     */
+    @ToString.Include
+    public int size() {
+        return members.size();
+    }
+
+    /**
+     * @return The number of generations since the best fitness of the species last improved
+     */
+    @ToString.Include
+    public int getStagnation() {
+        return age - lastImprovedAge;
+    }
+
+    void add(Individual individual) {
+        members.add(individual);
+    }
+
+    void clear() {
+        members.clear();
+    }
+
+    boolean isEmpty() {
+        return members.isEmpty();
+    }
+
+    Iterable<Individual> members() {
+        return members;
+    }
+
+    /**
+     * Close the current generation of the species
+     * @param generationBestFitness The best raw fitness among the current members
+     */
+    void recordGeneration(double generationBestFitness) {
+        age++;
+        if (generationBestFitness > bestFitness) {
+            bestFitness = generationBestFitness;
+            lastImprovedAge = age;
+        }
+    }
+
+    /**
+     * What a species carries from one generation to the next
+     */
+    @Value
+    public static class State {
+        int id;
+        Individual representative;
+        int age;
+        double bestFitness;
+        int lastImprovedAge;
+    }
+}
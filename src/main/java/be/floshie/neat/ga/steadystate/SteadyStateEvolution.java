@@ -0,0 +1,258 @@
+package be.floshie.neat.ga.steadystate;
+
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.crossover.CrossoverStrategy;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.ga.termination.StopReason;
+import be.floshie.neat.ga.termination.Termination;
+import be.floshie.neat.metrics.Metrics;
+import be.floshie.neat.metrics.Phase;
+import io.vavr.collection.LinkedHashMap;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Steady-state evolution in the style of real-time NEAT: there is no generational barrier. Every worker thread
+ * continuously breeds an offspring from the current population, evaluates it and inserts it into the population,
+ * retiring the worst individual to keep the population size. A slow evaluation only holds its own worker, the others
+ * keep the cores busy.
+ * <p>
+ * The parents are selected from a {@link FitnessTable} of shared fitnesses, refreshed every refreshInterval
+ * insertions: the population is then speciated, so a refresh plays the role of a generation for the species, the
+ * innovation registry and the metrics. The individual retired is the one of the last refresh with the lowest shared
+ * fitness, so the offspring inserted since the last refresh are never retired before they were ranked, and the best
+ * individual is never retired.
+ * <p>
+ * The order in which the offspring are inserted depends on the timing of the evaluations, so unlike the generational
+ * mode, a run cannot be reproduced from its seed.
+ */
+@Slf4j
+public class SteadyStateEvolution implements AutoCloseable {
+    private final CrossoverStrategy crossover;
+    private final MutationPipeline mutation;
+    private final ToDoubleFunction<Individual> rawFitness;
+    private final SpeciationAlgorithm speciation;
+    private final Metrics metrics;
+    private final int refreshInterval;
+    private final int threads;
+    private final ExecutorService executor;
+
+    /**
+     * The raw fitness of every living individual, in order of insertion. The mutable state is guarded by this.
+     */
+    private final java.util.LinkedHashMap<Individual, Double> population = new java.util.LinkedHashMap<>();
+
+    /**
+     * The individuals of the last refresh, from the lowest shared fitness to the highest
+     */
+    private final ArrayDeque<Individual> retirementQueue = new ArrayDeque<>();
+
+    private int populationSize;
+    private int insertionsSinceRefresh;
+    private int refreshes;
+    private Individual best;
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+    private StopReason stopReason;
+
+    private volatile FitnessTable table;
+    private volatile boolean stopped;
+
+    /**
+     * @param crossover The crossover strategy and its selection, they must be safe to call from several threads
+     * @param mutation The mutation pipeline
+     * @param rawFitness The raw fitness function, it must be safe to call from several threads
+     * @param speciation The speciation of the population
+     * @param metrics The metrics of the run, a refresh being reported as a generation
+     * @param parallelism The number of worker threads, 0 to use every available core
+     * @param refreshInterval The number of insertions between two refreshes of the selection table
+     */
+    public SteadyStateEvolution(
+        CrossoverStrategy crossover,
+        MutationPipeline mutation,
+        ToDoubleFunction<Individual> rawFitness,
+        SpeciationAlgorithm speciation,
+        Metrics metrics,
+        int parallelism,
+        int refreshInterval
+    ) {
+        this.crossover = crossover;
+        this.mutation = mutation;
+        this.rawFitness = rawFitness;
+        this.speciation = speciation;
+        this.metrics = metrics;
+        this.refreshInterval = Math.max(1, refreshInterval);
+        this.threads = parallelism <= 0 ? Runtime.getRuntime().availableProcessors() : parallelism;
+        this.executor = Executors.newFixedThreadPool(threads);
+    }
+
+    /**
+     * Evolve a population until the termination stops it
+     * @param initial The initial population, its size is kept during the whole run
+     * @param termination The termination, checked at every refresh
+     * @param seed The seed of the random generators of the workers
+     * @return The reason the run stopped
+     * @throws InterruptedException If interrupted while waiting for the workers
+     * @throws ExecutionException If a worker failed
+     */
+    public StopReason run(List<Individual> initial, Termination termination, long seed)
+        throws InterruptedException, ExecutionException {
+        metrics.beginGeneration(0);
+
+        val evaluations = new ArrayList<Callable<Double>>();
+        for (val individual : initial)
+            evaluations.add(() -> evaluate(individual));
+        val fitnesses = executor.invokeAll(evaluations);
+
+        synchronized (this) {
+            int i = 0;
+            for (val individual : initial) {
+                val fitness = fitnesses.get(i++).get();
+                population.put(individual, fitness);
+                updateBest(individual, fitness);
+            }
+            populationSize = population.size();
+            refresh(termination);
+        }
+
+        val random = new SplittableRandom(seed);
+        val workers = new ArrayList<Callable<Void>>();
+        for (int t = 0; t < threads; t++) {
+            val workerRandom = random.split();
+            workers.add(() -> {
+                work(workerRandom, termination);
+                return null;
+            });
+        }
+
+        // invokeAll waits for every worker, get() rethrows the first failure
+        for (Future<Void> worker : executor.invokeAll(workers))
+            worker.get();
+
+        return stopReason;
+    }
+
+    /**
+     * @return The individual with the best raw fitness found so far
+     */
+    public synchronized Individual getBest() {
+        return best;
+    }
+
+    /**
+     * @return The best raw fitness found so far
+     */
+    public synchronized double getBestFitness() {
+        return bestFitness;
+    }
+
+    private void work(SplittableRandom random, Termination termination) {
+        while (!stopped) {
+            val crossoverStart = metrics.start();
+            val parent = crossover.crossover(table, random);
+            metrics.record(Phase.CROSSOVER, crossoverStart);
+
+            val mutationStart = metrics.start();
+            val child = mutation.mutate(parent, random);
+            metrics.record(Phase.MUTATION, mutationStart);
+
+            insert(child, evaluate(child), termination);
+        }
+    }
+
+    private double evaluate(Individual individual) {
+        val start = metrics.start();
+        val fitness = rawFitness.applyAsDouble(individual);
+        metrics.record(Phase.FITNESS, start);
+        return fitness;
+    }
+
+    private synchronized void insert(Individual child, double fitness, Termination termination) {
+        if (stopped)
+            return;
+
+        // An offspring left untouched by the crossover and the mutations is a parent living on as a new individual
+        val individual = population.containsKey(child) ? new Individual(child.getAdvancedNeuralNetwork()) : child;
+        population.put(individual, fitness);
+        updateBest(individual, fitness);
+
+        while (population.size() > populationSize)
+            population.remove(nextToRetire());
+
+        if (++insertionsSinceRefresh >= refreshInterval)
+            refresh(termination);
+    }
+
+    private void updateBest(Individual individual, double fitness) {
+        if (fitness > bestFitness) {
+            best = individual;
+            bestFitness = fitness;
+        }
+    }
+
+    private Individual nextToRetire() {
+        for (Individual candidate = retirementQueue.poll(); candidate != null; candidate = retirementQueue.poll())
+            if (candidate != best && population.containsKey(candidate))
+                return candidate;
+
+        // Every ranked individual is gone, retire the lowest raw fitness
+        Individual worst = null;
+        for (val entry : population.entrySet())
+            if (entry.getKey() != best && (worst == null || entry.getValue() < population.get(worst)))
+                worst = entry.getKey();
+        return worst;
+    }
+
+    /**
+     * Speciate the population, publish a new selection table and check the termination
+     */
+    private void refresh(Termination termination) {
+        val individuals = List.ofAll(population.keySet());
+
+        val speciationStart = metrics.start();
+        val shared = speciation.adjustFitness(LinkedHashMap.ofAll(population));
+        metrics.record(Phase.SPECIATION, speciationStart);
+
+        val next = FitnessTable.of(individuals, shared);
+        retirementQueue.clear();
+        individuals.sortBy(next::getFitnessOf).forEach(retirementQueue::add);
+        table = next;
+
+        InnovationRegistry.global().nextGeneration();
+        insertionsSinceRefresh = 0;
+
+        val generationMetrics = metrics.endGeneration(individuals, speciation.getSpeciesCount(), bestFitness);
+        log.info("Refresh {}: best fitness {}, {} species, {} evaluations/s",
+            refreshes,
+            bestFitness,
+            generationMetrics.getSpeciesCount(),
+            Math.round(generationMetrics.getEvaluationsPerSecond())
+        );
+
+        val reason = termination.update(generationMetrics);
+        if (reason.isDefined()) {
+            stopReason = reason.get();
+            stopped = true;
+        } else {
+            metrics.beginGeneration(++refreshes);
+        }
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
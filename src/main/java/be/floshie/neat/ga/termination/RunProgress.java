@@ -0,0 +1,125 @@
+package be.floshie.neat.ga.termination;
+
+import be.floshie.neat.metrics.GenerationMetrics;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * The progress of a run, accumulated over the generations it evaluated
+ */
+@Getter
+public class RunProgress {
+    private long startNanos = System.nanoTime();
+
+    /**
+     * The number of the last evaluated generation, -1 before the first one
+     */
+    private int generation = -1;
+
+    /**
+     * The number of generations evaluated since the start of the run or since it was resumed
+     */
+    private int generationCount;
+
+    /**
+     * The number of calls to the raw fitness function
+     */
+    private long evaluations;
+
+    /**
+     * The work skipped by racing, as a number of full evaluations
+     */
+    private double savedEvaluations;
+
+    /**
+     * The best raw fitness found so far
+     */
+    private double bestFitness = Double.NEGATIVE_INFINITY;
+
+    /**
+     * The number of generations since the best fitness last improved
+     */
+    private int generationsWithoutImprovement;
+
+    private final double improvementThreshold;
+
+    /**
+     * @param improvementThreshold The smallest increase of the best fitness counted as an improvement
+     */
+    public RunProgress(double improvementThreshold) {
+        this.improvementThreshold = improvementThreshold;
+    }
+
+    /**
+     * Account for an evaluated generation
+     * @param metrics The metrics of the generation
+     */
+    public void update(GenerationMetrics metrics) {
+        generation = metrics.getGeneration();
+        generationCount++;
+        evaluations += metrics.getEvaluations();
+        savedEvaluations += metrics.getSavedEvaluations();
+
+        if (metrics.getBestFitness() > bestFitness + improvementThreshold) {
+            bestFitness = metrics.getBestFitness();
+            generationsWithoutImprovement = 0;
+        } else {
+            bestFitness = Math.max(bestFitness, metrics.getBestFitness());
+            generationsWithoutImprovement++;
+        }
+    }
+
+    /**
+     * @return The time elapsed since the start of the run, in nanoseconds
+     */
+    public long getElapsedNanos() {
+        return System.nanoTime() - startNanos;
+    }
+
+    /**
+     * Capture the progress, typically to checkpoint a run
+     * @return The captured progress
+     */
+    public Snapshot snapshot() {
+        return new Snapshot(
+            generation,
+            evaluations,
+            savedEvaluations,
+            bestFitness,
+            generationsWithoutImprovement,
+            getElapsedNanos()
+        );
+    }
+
+    /**
+     * Replace the progress with a captured one to resume a run, so the budgets and the stagnation go on from where the
+     * run stopped instead of starting over. The generations evaluated since the run was resumed still start at 0.
+     * @param snapshot The progress to restore
+     */
+    public void restore(Snapshot snapshot) {
+        generation = snapshot.getGeneration();
+        evaluations = snapshot.getEvaluations();
+        savedEvaluations = snapshot.getSavedEvaluations();
+        bestFitness = snapshot.getBestFitness();
+        generationsWithoutImprovement = snapshot.getGenerationsWithoutImprovement();
+        startNanos = System.nanoTime() - snapshot.getElapsedNanos();
+    }
+
+    /**
+     * The progress of a run between two generations
+     */
+    @Value
+    public static class Snapshot {
+        /**
+         * The progress of a run that has not evaluated any generation yet
+         */
+        public static final Snapshot INITIAL = new Snapshot(-1, 0, 0, Double.NEGATIVE_INFINITY, 0, 0);
+
+        int generation;
+        long evaluations;
+        double savedEvaluations;
+        double bestFitness;
+        int generationsWithoutImprovement;
+        long elapsedNanos;
+    }
+}
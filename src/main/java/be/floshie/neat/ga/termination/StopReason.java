@@ -0,0 +1,12 @@
+package be.floshie.neat.ga.termination;
+
+/**
+ * Why a run stopped
+ */
+public enum StopReason {
+    MAX_GENERATIONS,
+    TARGET_FITNESS,
+    TIME_BUDGET,
+    EVALUATION_BUDGET,
+    STAGNATION,
+}
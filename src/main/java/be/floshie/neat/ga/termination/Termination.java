@@ -0,0 +1,39 @@
+package be.floshie.neat.ga.termination;
+
+import be.floshie.neat.metrics.GenerationMetrics;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.Getter;
+import lombok.val;
+
+/**
+ * Decides when a run stops: the progress of the run is updated at the end of every generation, then the conditions
+ * are checked in order and the first one met gives the reason to stop.
+ */
+public class Termination {
+    private final List<TerminationCondition> conditions;
+
+    @Getter
+    private final RunProgress progress;
+
+    public Termination(List<TerminationCondition> conditions, double improvementThreshold) {
+        this.conditions = conditions;
+        this.progress = new RunProgress(improvementThreshold);
+    }
+
+    /**
+     * Account for an evaluated generation and check whether the run should stop
+     * @param metrics The metrics of the generation
+     * @return The reason to stop the run, or none to go on
+     */
+    public Option<StopReason> update(GenerationMetrics metrics) {
+        progress.update(metrics);
+
+        for (val condition : conditions) {
+            val reason = condition.check(progress);
+            if (reason.isDefined())
+                return reason;
+        }
+        return Option.none();
+    }
+}
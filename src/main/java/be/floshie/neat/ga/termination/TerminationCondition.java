@@ -0,0 +1,68 @@
+package be.floshie.neat.ga.termination;
+
+import io.vavr.control.Option;
+import lombok.val;
+
+import java.time.Duration;
+
+/**
+ * A condition deciding whether a run should stop, checked at the end of every generation
+ */
+@FunctionalInterface
+public interface TerminationCondition {
+    /**
+     * @param progress The progress of the run
+     * @return The reason to stop the run, or none to go on
+     */
+    Option<StopReason> check(RunProgress progress);
+
+    /**
+     * Stop once a number of generations have been evaluated. The generations are numbered from the start of the run,
+     * including the ones evaluated before it was resumed.
+     * @param maxGenerations The number of generations
+     * @return The condition
+     */
+    static TerminationCondition maxGenerations(int maxGenerations) {
+        return progress -> Option.when(progress.getGeneration() + 1 >= maxGenerations, StopReason.MAX_GENERATIONS);
+    }
+
+    /**
+     * Stop once an individual reaches a raw fitness
+     * @param targetFitness The raw fitness to reach
+     * @return The condition
+     */
+    static TerminationCondition targetFitness(double targetFitness) {
+        return progress -> Option.when(progress.getBestFitness() >= targetFitness, StopReason.TARGET_FITNESS);
+    }
+
+    /**
+     * Stop once the run has lasted for a given time
+     * @param budget The wall-clock time of the run
+     * @return The condition
+     */
+    static TerminationCondition timeBudget(Duration budget) {
+        val budgetNanos = budget.toNanos();
+        return progress -> Option.when(progress.getElapsedNanos() >= budgetNanos, StopReason.TIME_BUDGET);
+    }
+
+    /**
+     * Stop once the raw fitness function has been called a number of times
+     * @param maxEvaluations The number of calls
+     * @return The condition
+     */
+    static TerminationCondition evaluationBudget(long maxEvaluations) {
+        return progress -> Option.when(progress.getEvaluations() >= maxEvaluations, StopReason.EVALUATION_BUDGET);
+    }
+
+    /**
+     * Stop once the best fitness has not improved for a number of generations
+     * @param generations The number of generations without improvement
+     * @return The condition
+     */
+    static TerminationCondition stagnation(int generations) {
+        return progress -> Option.when(
+            progress.getGenerationsWithoutImprovement() >= generations,
+            StopReason.STAGNATION
+        );
+    }
+}
@@ -0,0 +1,61 @@
+package be.floshie.neat.island;
+
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.ArrayList;
+
+/**
+ * Runs every island of an island model in its own worker process, so each island has its own heap and garbage
+ * collector. The workers run the same main class on the same class path and JVM options, with the same arguments
+ * followed by {@code --island <index>}.
+ */
+@Slf4j
+public final class IslandLauncher {
+    private IslandLauncher() {
+    }
+
+    /**
+     * Start the workers and wait for all of them to stop. The workers are killed if this process is.
+     * @param mainClass The main class of the workers
+     * @param islandCount The number of islands
+     * @param args The arguments of the workers
+     * @return The highest exit code of the workers
+     * @throws IOException If a worker cannot be started
+     * @throws InterruptedException If interrupted while waiting for the workers
+     */
+    public static int launch(Class<?> mainClass, int islandCount, String[] args)
+        throws IOException, InterruptedException {
+        val java = ProcessHandle.current().info().command()
+            .orElse(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+
+        val processes = new ArrayList<Process>();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> processes.forEach(Process::destroy)));
+
+        for (int island = 0; island < islandCount; island++) {
+            val command = new ArrayList<String>();
+            command.add(java);
+            for (val option : ManagementFactory.getRuntimeMXBean().getInputArguments())
+                // A debugger agent would try to bind the same port in every worker
+                if (!option.startsWith("-agentlib:jdwp"))
+                    command.add(option);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(mainClass.getName());
+            command.addAll(java.util.List.of(args));
+            command.add("--island");
+            command.add(Integer.toString(island));
+
+            processes.add(new ProcessBuilder(command).inheritIO().start());
+            log.info("Started island {}", island);
+        }
+
+        int exitCode = 0;
+        for (val process : processes)
+            exitCode = Math.max(exitCode, process.waitFor());
+        return exitCode;
+    }
+}
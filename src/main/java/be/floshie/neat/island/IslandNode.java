@@ -0,0 +1,188 @@
+package be.floshie.neat.island;
+
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.Getter;
+import lombok.SneakyThrows;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * The migration endpoint of an island. The island i listens on the loopback port basePort + i, receives the
+ * migrants of its neighbours on background threads and sends its own migrants to the islands given by the topology.
+ * <p>
+ * Migrations are asynchronous: the migrants received are kept until the island takes them with {@link #receive()},
+ * and an island never waits for its neighbours except to connect to them the first time. A neighbour that cannot be
+ * reached is given up, so an island that stopped does not hold the others back.
+ */
+@Slf4j
+public class IslandNode implements AutoCloseable {
+    /**
+     * The number of attempts to connect to a neighbour, 100 ms apart, leaving time for it to start
+     */
+    private static final int CONNECT_ATTEMPTS = 100;
+
+    @Getter
+    private final int island;
+    private final int basePort;
+    private final List<Integer> destinations;
+
+    private final ServerSocket server;
+    private final CopyOnWriteArrayList<Socket> incoming = new CopyOnWriteArrayList<>();
+    private final ConcurrentLinkedQueue<Individual> inbox = new ConcurrentLinkedQueue<>();
+
+    private final Map<Integer, DataOutputStream> outputs = new HashMap<>();
+    private final Set<Integer> unreachable = new HashSet<>();
+
+    /**
+     * Start the endpoint of an island, listening for the migrants of its neighbours
+     * @param island The index of the island
+     * @param islandCount The number of islands
+     * @param basePort The port of the island 0
+     * @param topology The topology of the migrations
+     * @throws IOException If the port of the island cannot be bound
+     */
+    public IslandNode(int island, int islandCount, int basePort, MigrationTopology topology) throws IOException {
+        this.island = island;
+        this.basePort = basePort;
+        this.destinations = topology.destinations(island, islandCount);
+        this.server = new ServerSocket(basePort + island, 50, InetAddress.getLoopbackAddress());
+
+        daemon("island-" + island + "-accept", this::accept).start();
+    }
+
+    /**
+     * Send migrants to the neighbours of the island
+     * @param generation The generation of the migrants
+     * @param migrants The migrants
+     */
+    public void send(int generation, List<Individual> migrants) {
+        val migration = new Migration(island, generation, migrants);
+        for (val destination : destinations) {
+            if (unreachable.contains(destination))
+                continue;
+
+            try {
+                val out = output(destination);
+                MigrationCodec.write(migration, out);
+                out.flush();
+            } catch (IOException e) {
+                log.warn("Island {} is unreachable, no more migrants will be sent to it", destination, e);
+                unreachable.add(destination);
+                val out = outputs.remove(destination);
+                if (out != null)
+                    closeQuietly(out);
+            }
+        }
+    }
+
+    /**
+     * Take the migrants received since the last call
+     * @return The migrants, in order of arrival
+     */
+    public List<Individual> receive() {
+        var migrants = List.<Individual>empty();
+        for (Individual migrant = inbox.poll(); migrant != null; migrant = inbox.poll())
+            migrants = migrants.prepend(migrant);
+        return migrants.reverse();
+    }
+
+    private DataOutputStream output(int destination) throws IOException {
+        var out = outputs.get(destination);
+        if (out == null) {
+            val socket = connect(basePort + destination);
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            MigrationCodec.writeHeader(out);
+            outputs.put(destination, out);
+        }
+        return out;
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    private static Socket connect(int port) throws IOException {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return new Socket(InetAddress.getLoopbackAddress(), port);
+            } catch (ConnectException e) {
+                // The neighbour may still be starting
+                if (attempt >= CONNECT_ATTEMPTS)
+                    throw e;
+                Thread.sleep(100);
+            }
+        }
+    }
+
+    private void accept() {
+        while (!server.isClosed()) {
+            try {
+                val socket = server.accept();
+                incoming.add(socket);
+                daemon("island-" + island + "-receive", () -> listen(socket)).start();
+            } catch (IOException e) {
+                if (!server.isClosed())
+                    log.warn("Island {} could not accept a neighbour", island, e);
+            }
+        }
+    }
+
+    private void listen(Socket socket) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()))) {
+            MigrationCodec.readHeader(in);
+            while (true) {
+                val migration = MigrationCodec.read(in);
+                inbox.addAll(migration.getMigrants().asJava());
+                log.debug("Island {} received {} migrants of generation {} from island {}",
+                    island, migration.getMigrants().size(), migration.getGeneration(), migration.getSource());
+            }
+        } catch (EOFException e) {
+            // The neighbour stopped
+        } catch (IOException e) {
+            if (!server.isClosed())
+                log.warn("Island {} lost a neighbour", island, e);
+        } finally {
+            incoming.remove(socket);
+        }
+    }
+
+    private static Thread daemon(String name, Runnable runnable) {
+        val thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            // Nothing left to do with it
+        }
+    }
+
+    /**
+     * Stop listening and close the connections to the neighbours
+     */
+    @Override
+    public void close() {
+        closeQuietly(server);
+        outputs.values().forEach(IslandNode::closeQuietly);
+        outputs.clear();
+        incoming.forEach(IslandNode::closeQuietly);
+    }
+}
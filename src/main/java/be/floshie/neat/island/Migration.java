@@ -0,0 +1,15 @@
+package be.floshie.neat.island;
+
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.Value;
+
+/**
+ * A batch of migrants sent by an island
+ */
+@Value
+public class Migration {
+    int source;
+    int generation;
+    List<Individual> migrants;
+}
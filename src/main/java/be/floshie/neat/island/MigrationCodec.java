@@ -0,0 +1,93 @@
+package be.floshie.neat.island;
+
+import be.floshie.neat.ai.io.GenomeCodec;
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.val;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * The wire format of the migrations between islands. A connection starts with a header, then carries any number of
+ * migrations, every migrant being a length-prefixed genome (see {@link GenomeCodec}):
+ * <pre>
+ * int magic, short version                  once per connection, the version of the genome layout
+ * int source, int generation, int count, (int length, genome)*
+ * </pre>
+ */
+public final class MigrationCodec {
+    private static final int MAGIC = 0x4E4D4947; // NMIG
+
+    private MigrationCodec() {
+    }
+
+    /**
+     * Write the header of a connection
+     * @param out The output
+     * @throws IOException If the header cannot be written
+     */
+    public static void writeHeader(DataOutput out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeShort(GenomeCodec.VERSION);
+    }
+
+    /**
+     * Read and check the header of a connection
+     * @param in The input
+     * @throws IOException If the input is not a migration stream of a supported version
+     */
+    public static void readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC)
+            throw new IOException("Not a migration stream");
+
+        val version = in.readShort();
+        if (version != GenomeCodec.VERSION)
+            throw new IOException("Unsupported genome version " + version);
+    }
+
+    /**
+     * Write a migration
+     * @param migration The migration
+     * @param out The output
+     * @throws IOException If the migration cannot be written
+     */
+    public static void write(Migration migration, DataOutput out) throws IOException {
+        out.writeInt(migration.getSource());
+        out.writeInt(migration.getGeneration());
+        out.writeInt(migration.getMigrants().size());
+
+        val record = new ByteArrayOutputStream();
+        val recordOut = new DataOutputStream(record);
+        for (val migrant : migration.getMigrants()) {
+            record.reset();
+            GenomeCodec.write(migrant.getAdvancedNeuralNetwork(), recordOut);
+            out.writeInt(record.size());
+            out.write(record.toByteArray());
+        }
+    }
+
+    /**
+     * Read the next migration, blocking until it is fully received
+     * @param in The input
+     * @return The migration
+     * @throws IOException If the migration cannot be read, an {@link java.io.EOFException} at the end of the stream
+     */
+    public static Migration read(DataInput in) throws IOException {
+        val source = in.readInt();
+        val generation = in.readInt();
+        val migrants = new Individual[in.readInt()];
+
+        for (int i = 0; i < migrants.length; i++) {
+            val record = new byte[in.readInt()];
+            in.readFully(record);
+            migrants[i] = new Individual(GenomeCodec.read(ByteBuffer.wrap(record)));
+        }
+
+        return new Migration(source, generation, List.of(migrants));
+    }
+}
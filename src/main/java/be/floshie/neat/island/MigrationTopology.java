@@ -0,0 +1,36 @@
+package be.floshie.neat.island;
+
+import io.vavr.collection.List;
+
+/**
+ * Which islands receive the migrants of an island
+ */
+public enum MigrationTopology {
+    /**
+     * Every island sends its migrants to the next one, the last island sending them to the first one
+     */
+    RING {
+        @Override
+        public List<Integer> destinations(int island, int islandCount) {
+            return islandCount < 2 ? List.empty() : List.of((island + 1) % islandCount);
+        }
+    },
+
+    /**
+     * Every island sends its migrants to every other island
+     */
+    FULLY_CONNECTED {
+        @Override
+        public List<Integer> destinations(int island, int islandCount) {
+            return List.range(0, islandCount).remove(island);
+        }
+    },
+    ;
+
+    /**
+     * @param island The index of the sending island
+     * @param islandCount The number of islands
+     * @return The indices of the islands receiving the migrants
+     */
+    public abstract List<Integer> destinations(int island, int islandCount);
+}
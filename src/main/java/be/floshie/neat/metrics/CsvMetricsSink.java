@@ -0,0 +1,64 @@
+package be.floshie.neat.metrics;
+
+import lombok.val;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the metrics as CSV, one row per generation after a header row. Every row is flushed so the file can be
+ * followed while the run is going on.
+ */
+public class CsvMetricsSink implements MetricsSink {
+    private static final String HEADER = String.join(",",
+        "generation", "durationNanos",
+        "fitnessNanos", "speciationNanos", "selectionNanos", "crossoverNanos", "mutationNanos",
+        "allocatedBytes", "evaluations", "evaluationsPerSecond", "cutOffEvaluations", "savedEvaluations",
+        "speciesCount", "bestFitness",
+        "minGenomeSize", "medianGenomeSize", "p90GenomeSize", "maxGenomeSize", "meanGenomeSize", "meanNeuronCount"
+    );
+
+    private final BufferedWriter writer;
+
+    public CsvMetricsSink(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file);
+        writer.write(HEADER);
+        writer.newLine();
+    }
+
+    @Override
+    public void accept(GenerationMetrics metrics) throws IOException {
+        val row = new StringBuilder()
+            .append(metrics.getGeneration()).append(',')
+            .append(metrics.getDurationNanos()).append(',')
+            .append(metrics.getFitnessNanos()).append(',')
+            .append(metrics.getSpeciationNanos()).append(',')
+            .append(metrics.getSelectionNanos()).append(',')
+            .append(metrics.getCrossoverNanos()).append(',')
+            .append(metrics.getMutationNanos()).append(',')
+            .append(metrics.getAllocatedBytes()).append(',')
+            .append(metrics.getEvaluations()).append(',')
+            .append(metrics.getEvaluationsPerSecond()).append(',')
+            .append(metrics.getCutOffEvaluations()).append(',')
+            .append(metrics.getSavedEvaluations()).append(',')
+            .append(metrics.getSpeciesCount()).append(',')
+            .append(metrics.getBestFitness()).append(',')
+            .append(metrics.getMinGenomeSize()).append(',')
+            .append(metrics.getMedianGenomeSize()).append(',')
+            .append(metrics.getP90GenomeSize()).append(',')
+            .append(metrics.getMaxGenomeSize()).append(',')
+            .append(metrics.getMeanGenomeSize()).append(',')
+            .append(metrics.getMeanNeuronCount());
+
+        writer.write(row.toString());
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
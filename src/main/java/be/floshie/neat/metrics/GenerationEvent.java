@@ -0,0 +1,67 @@
+package be.floshie.neat.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * A JFR event spanning one generation, so long runs can be profiled with a flight recording
+ * ({@code -XX:StartFlightRecording}) instead of attaching a profiler
+ */
+@Name("be.floshie.neat.Generation")
+@Label("NEAT Generation")
+@Category({"NEAT"})
+@Description("The metrics of one generation of the evolution")
+@StackTrace(false)
+class GenerationEvent extends Event {
+    @Label("Generation")
+    int generation;
+
+    @Label("Fitness Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long fitnessTime;
+
+    @Label("Speciation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long speciationTime;
+
+    @Label("Selection Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long selectionTime;
+
+    @Label("Crossover Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long crossoverTime;
+
+    @Label("Mutation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long mutationTime;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+
+    @Label("Evaluations")
+    long evaluations;
+
+    @Label("Saved Evaluations")
+    @Description("The work skipped by racing, as a number of full evaluations")
+    double savedEvaluations;
+
+    @Label("Species")
+    int speciesCount;
+
+    @Label("Best Fitness")
+    double bestFitness;
+
+    @Label("Mean Genome Size")
+    double meanGenomeSize;
+
+    @Label("Max Genome Size")
+    int maxGenomeSize;
+}
@@ -0,0 +1,51 @@
+package be.floshie.neat.metrics;
+
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * A snapshot of the metrics of one generation. The times are in nanoseconds, the genome sizes are numbers of genes.
+ */
+@Value
+@Builder
+public class GenerationMetrics {
+    int generation;
+    long durationNanos;
+
+    long fitnessNanos;
+    long speciationNanos;
+    long selectionNanos;
+    long crossoverNanos;
+    long mutationNanos;
+
+    /**
+     * The bytes allocated during the generation by the threads still alive at its end, -1 if the JVM cannot measure it
+     */
+    long allocatedBytes;
+
+    /**
+     * The number of calls to the raw fitness function, the fitnesses found in the cache are not counted
+     */
+    long evaluations;
+    double evaluationsPerSecond;
+
+    /**
+     * The number of calls to the raw fitness function cut off by racing, they are included in the evaluations
+     */
+    long cutOffEvaluations;
+
+    /**
+     * The work skipped by racing, as a number of full evaluations
+     */
+    double savedEvaluations;
+
+    int speciesCount;
+    double bestFitness;
+
+    int minGenomeSize;
+    int medianGenomeSize;
+    int p90GenomeSize;
+    int maxGenomeSize;
+    double meanGenomeSize;
+    double meanNeuronCount;
+}
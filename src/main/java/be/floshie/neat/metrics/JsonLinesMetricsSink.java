@@ -0,0 +1,33 @@
+package be.floshie.neat.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Writes the metrics as JSON lines, one object per generation. Every line is flushed so the file can be followed
+ * while the run is going on.
+ */
+public class JsonLinesMetricsSink implements MetricsSink {
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final BufferedWriter writer;
+
+    public JsonLinesMetricsSink(Path file) throws IOException {
+        this.writer = Files.newBufferedWriter(file);
+    }
+
+    @Override
+    public void accept(GenerationMetrics metrics) throws IOException {
+        writer.write(mapper.writeValueAsString(metrics));
+        writer.newLine();
+        writer.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+}
@@ -0,0 +1,263 @@
+package be.floshie.neat.metrics;
+
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.selection.ISelection;
+import io.vavr.collection.List;
+import lombok.extern.slf4j.Slf4j;
+import lombok.val;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.DoubleAdder;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.random.RandomGenerator;
+
+/**
+ * Collects the metrics of the generation loop: the time spent in every {@link Phase}, the number of fitness
+ * evaluations and the allocations. The counters are safe to update from several threads. At the end of every
+ * generation, the counters are turned into a {@link GenerationMetrics} snapshot, published as a JFR event and exported
+ * to the sinks, then reset.
+ */
+@Slf4j
+public class Metrics implements AutoCloseable {
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder cutOffs = new LongAdder();
+    private final DoubleAdder savedEvaluations = new DoubleAdder();
+    private final List<MetricsSink> sinks;
+
+    private final com.sun.management.ThreadMXBean threads;
+
+    private GenerationEvent event;
+    private int generation;
+    private long generationStart;
+    private Map<Long, Long> allocatedAtStart;
+
+    public Metrics(MetricsSink... sinks) {
+        this.sinks = List.of(sinks);
+        for (int i = 0; i < phaseNanos.length; i++)
+            phaseNanos[i] = new LongAdder();
+
+        // Allocations are only measured on the JVMs supporting the per-thread allocation counters
+        val bean = ManagementFactory.getThreadMXBean();
+        this.threads = bean instanceof com.sun.management.ThreadMXBean sunBean
+            && sunBean.isThreadAllocatedMemorySupported()
+            && sunBean.isThreadAllocatedMemoryEnabled()
+            ? sunBean
+            : null;
+    }
+
+    /**
+     * @return The current time to pass to {@link #record(Phase, long)}
+     */
+    public long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Add the time elapsed since the given start to a phase
+     * @param phase The phase
+     * @param startNanos The start of the phase, as returned by {@link #start()}
+     */
+    public void record(Phase phase, long startNanos) {
+        phaseNanos[phase.ordinal()].add(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Count a call to the raw fitness function
+     */
+    public void recordEvaluation() {
+        evaluations.increment();
+    }
+
+    /**
+     * Count a call to the raw fitness function cut off before its end, racing having proven it could not reach the
+     * threshold
+     * @param savedFraction The fraction of a full evaluation that was skipped, between 0 and 1
+     */
+    public void recordCutOff(double savedFraction) {
+        cutOffs.increment();
+        savedEvaluations.add(savedFraction);
+    }
+
+    /**
+     * Wrap a selection so the time spent selecting is recorded as {@link Phase#SELECTION}
+     * @param selection The selection
+     * @return The timed selection
+     */
+    public ISelection timed(ISelection selection) {
+        return new ISelection() {
+            @Override
+            public Individual select(FitnessTable fitnesses, RandomGenerator random) {
+                val start = start();
+                try {
+                    return selection.select(fitnesses, random);
+                } finally {
+                    record(Phase.SELECTION, start);
+                }
+            }
+
+            @Override
+            public Individual select(FitnessTable fitnesses, int pick, RandomGenerator random) {
+                val start = start();
+                try {
+                    return selection.select(fitnesses, pick, random);
+                } finally {
+                    record(Phase.SELECTION, start);
+                }
+            }
+        };
+    }
+
+    /**
+     * Start a generation
+     * @param generation The generation number
+     */
+    public void beginGeneration(int generation) {
+        this.generation = generation;
+        this.event = new GenerationEvent();
+        event.begin();
+        allocatedAtStart = allocatedBytesByThread();
+        generationStart = System.nanoTime();
+    }
+
+    /**
+     * End the current generation: snapshot the metrics, publish them and reset the counters
+     * @param population The evaluated population of the generation
+     * @param speciesCount The number of species of the generation
+     * @param bestFitness The best raw fitness of the generation
+     * @return The metrics of the generation
+     */
+    public GenerationMetrics endGeneration(List<Individual> population, int speciesCount, double bestFitness) {
+        val durationNanos = System.nanoTime() - generationStart;
+        val allocated = allocatedSince(allocatedAtStart);
+
+        val genomeSizes = new int[population.size()];
+        long neurons = 0;
+        int i = 0;
+        for (val individual : population) {
+            val network = individual.getAdvancedNeuralNetwork();
+            genomeSizes[i++] = network.getGenes().size();
+            neurons += network.vertexSet().size();
+        }
+        Arrays.sort(genomeSizes);
+
+        val fitnessNanos = phaseNanos[Phase.FITNESS.ordinal()].sumThenReset();
+        val evaluationCount = evaluations.sumThenReset();
+        // The parents are selected inside the crossover. A steady-state worker may still be between the two records,
+        // hence the clamp.
+        val selectionNanos = phaseNanos[Phase.SELECTION.ordinal()].sumThenReset();
+        val crossoverNanos = Math.max(0, phaseNanos[Phase.CROSSOVER.ordinal()].sumThenReset() - selectionNanos);
+
+        val metrics = GenerationMetrics.builder()
+            .generation(generation)
+            .durationNanos(durationNanos)
+            .fitnessNanos(fitnessNanos)
+            .speciationNanos(phaseNanos[Phase.SPECIATION.ordinal()].sumThenReset())
+            .selectionNanos(selectionNanos)
+            .crossoverNanos(crossoverNanos)
+            .mutationNanos(phaseNanos[Phase.MUTATION.ordinal()].sumThenReset())
+            .allocatedBytes(allocated)
+            .evaluations(evaluationCount)
+            .evaluationsPerSecond(fitnessNanos == 0 ? 0 : evaluationCount * 1e9 / fitnessNanos)
+            .cutOffEvaluations(cutOffs.sumThenReset())
+            .savedEvaluations(savedEvaluations.sumThenReset())
+            .speciesCount(speciesCount)
+            .bestFitness(bestFitness)
+            .minGenomeSize(percentile(genomeSizes, 0))
+            .medianGenomeSize(percentile(genomeSizes, .5))
+            .p90GenomeSize(percentile(genomeSizes, .9))
+            .maxGenomeSize(percentile(genomeSizes, 1))
+            .meanGenomeSize(genomeSizes.length == 0 ? 0 : (double) Arrays.stream(genomeSizes).sum() / genomeSizes.length)
+            .meanNeuronCount(genomeSizes.length == 0 ? 0 : (double) neurons / genomeSizes.length)
+            .build();
+
+        publish(metrics);
+        return metrics;
+    }
+
+    private void publish(GenerationMetrics metrics) {
+        if (event != null && event.shouldCommit()) {
+            event.generation = metrics.getGeneration();
+            event.fitnessTime = metrics.getFitnessNanos();
+            event.speciationTime = metrics.getSpeciationNanos();
+            event.selectionTime = metrics.getSelectionNanos();
+            event.crossoverTime = metrics.getCrossoverNanos();
+            event.mutationTime = metrics.getMutationNanos();
+            event.allocatedBytes = metrics.getAllocatedBytes();
+            event.evaluations = metrics.getEvaluations();
+            event.savedEvaluations = metrics.getSavedEvaluations();
+            event.speciesCount = metrics.getSpeciesCount();
+            event.bestFitness = metrics.getBestFitness();
+            event.meanGenomeSize = metrics.getMeanGenomeSize();
+            event.maxGenomeSize = metrics.getMaxGenomeSize();
+            event.commit();
+        }
+        event = null;
+
+        for (val sink : sinks) {
+            try {
+                sink.accept(metrics);
+            } catch (IOException e) {
+                log.warn("Could not export the metrics of generation {}", metrics.getGeneration(), e);
+            }
+        }
+    }
+
+    /**
+     * @return The bytes allocated so far by every live thread, by thread id, null if they cannot be measured
+     */
+    private Map<Long, Long> allocatedBytesByThread() {
+        if (threads == null)
+            return null;
+
+        val ids = threads.getAllThreadIds();
+        val allocated = threads.getThreadAllocatedBytes(ids);
+        val byThread = new HashMap<Long, Long>(ids.length * 2);
+        for (int i = 0; i < ids.length; i++)
+            if (allocated[i] >= 0)
+                byThread.put(ids[i], allocated[i]);
+        return byThread;
+    }
+
+    /**
+     * Sum the bytes allocated by the live threads since a baseline. A thread started after the baseline counts all its
+     * allocations. A thread that ended in between, such as an idle pool thread, is no longer measured, so its
+     * allocations are missing and the total can be too low, but never negative.
+     * @param baseline The bytes allocated by thread id, as returned by {@link #allocatedBytesByThread()}
+     * @return The bytes allocated since the baseline, -1 if they cannot be measured
+     */
+    private long allocatedSince(Map<Long, Long> baseline) {
+        val current = allocatedBytesByThread();
+        if (baseline == null || current == null)
+            return -1;
+
+        long total = 0;
+        for (val entry : current.entrySet())
+            total += Math.max(0, entry.getValue() - baseline.getOrDefault(entry.getKey(), 0L));
+        return total;
+    }
+
+    /**
+     * @param sorted The sorted values
+     * @param rank The rank between 0 and 1
+     * @return The value at the rank with the nearest-rank method, 0 if there is no value
+     */
+    private static int percentile(int[] sorted, double rank) {
+        if (sorted.length == 0)
+            return 0;
+
+        val index = (int) Math.ceil(rank * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (val sink : sinks)
+            sink.close();
+    }
+}
@@ -0,0 +1,18 @@
+package be.floshie.neat.metrics;
+
+import java.io.IOException;
+
+/**
+ * A destination for the metrics of every generation
+ */
+public interface MetricsSink extends AutoCloseable {
+    /**
+     * Export the metrics of a generation
+     * @param metrics The metrics of the generation
+     * @throws IOException If the metrics cannot be written
+     */
+    void accept(GenerationMetrics metrics) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
@@ -0,0 +1,34 @@
+package be.floshie.neat.metrics;
+
+/**
+ * The timed phases of a generation. The phases run in parallel are timed on every thread and summed, so their time
+ * is a busy time that can exceed the wall time of the generation.
+ */
+public enum Phase {
+    /**
+     * The raw fitness of the population, timed on the main thread by the generational loop and summed over the worker
+     * threads in the steady-state mode
+     */
+    FITNESS,
+
+    /**
+     * The speciation and the fitness sharing, timed on the main thread
+     */
+    SPECIATION,
+
+    /**
+     * The selection of the parents, summed over the breeding threads
+     */
+    SELECTION,
+
+    /**
+     * The crossover of the parents, summed over the breeding threads. The parents are selected during the crossover,
+     * the {@link #SELECTION} time is taken out of it so the two phases do not count the same time twice.
+     */
+    CROSSOVER,
+
+    /**
+     * The mutation of the offspring, summed over the breeding threads
+     */
+    MUTATION,
+}
@@ -0,0 +1,38 @@
+package be.floshie.neat;
+
+import be.floshie.neat.ga.termination.StopReason;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NeatMainTest {
+    @Test
+    void givenAReachableTargetFitness_whenRunningGenerations_thenTheRunStopsOnTheTarget() throws Exception {
+        val parameters = new NeatParameters();
+        parameters.seed = 42;
+        parameters.populationSize = 50;
+        parameters.maxGenerations = 300;
+        // Above the 0.8 of a constant output of 0.5, and reachable without any hidden neuron. The shared fitness of
+        // a species of several members never gets there.
+        parameters.targetFitness = 0.83;
+        parameters.dt = 1.25;
+        parameters.fitnessParallelism = 1;
+        parameters.reproductionParallelism = 1;
+
+        assertEquals(StopReason.TARGET_FITNESS, new NeatMain(parameters).run());
+    }
+
+    @Test
+    void givenTheSteadyStateMode_whenCombinedWithIslandsOrCheckpoints_thenTheParametersAreRejected() {
+        val islands = new NeatParameters();
+        islands.steadyState = true;
+        islands.islands = 2;
+        assertThrows(IllegalArgumentException.class, () -> new NeatMain(islands));
+
+        val checkpoints = new NeatParameters();
+        checkpoints.steadyState = true;
+        checkpoints.checkpointInterval = 10;
+        assertThrows(IllegalArgumentException.class, () -> new NeatMain(checkpoints));
+    }
+}
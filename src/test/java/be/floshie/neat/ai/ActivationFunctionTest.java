@@ -0,0 +1,34 @@
+package be.floshie.neat.ai;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActivationFunctionTest {
+    private static final double[] VALUES = IntStream.rangeClosed(-2000, 2000)
+        .mapToDouble(i -> i / 100.0)
+        .toArray();
+
+    @ParameterizedTest
+    @EnumSource(ActivationFunction.class)
+    void givenAnActivation_whenAppliedAsABatch_thenEveryValueMatchesTheScalarForm(ActivationFunction activation) {
+        val activated = new double[VALUES.length + 1];
+        activation.applyBatch(VALUES, 0, activated, 1, VALUES.length);
+
+        for (int k = 0; k < VALUES.length; k++)
+            assertEquals(activation.applyAsDouble(VALUES[k]), activated[k + 1]);
+    }
+
+    @Test
+    void givenTheFastApproximations_whenComparedToTheExactFunctions_thenTheErrorIsBelowTheBound() {
+        for (val x : VALUES) {
+            assertEquals(Math.tanh(x), ActivationFunction.FAST_TANH.applyAsDouble(x), 1e-4);
+            assertEquals(ActivationFunction.SIGMOID.applyAsDouble(x), ActivationFunction.FAST_SIGMOID.applyAsDouble(x), 1e-4);
+        }
+    }
+}
@@ -14,6 +14,10 @@ import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Executors;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -70,6 +74,52 @@ class AdvancedNeuralNetworkTest {
         );
     }
 
+    @Test
+    void givenGraph01_whenAWeightChanges_thenTheCompiledNetworkIsRebuilt() {
+        val before = ann1.feedForward(new double[]{1, 1});
+
+        val axon = ann1.edgeSet().stream() // n3 -> n5
+            .filter(it -> ann1.getEdgeTarget(it).getId() == 4)
+            .findFirst()
+            .get();
+        ann1.setEdgeWeight(axon, 1.0);
+        val after = ann1.feedForward(new double[]{1, 1});
+
+        assertEquals(.5, before[0]);
+        assertEquals(1.0, after[0]);
+    }
+
+    @Test
+    void givenGraph01_whenFeedingABatch_thenEverySampleMatchesItsSingleEvaluation() {
+        val samples = new double[][]{{1, 1}, {2, 3}, {4, -2}, {.75, -.33}};
+
+        val outputs = ann1.feedForward(samples);
+
+        assertEquals(samples.length, outputs.length);
+        for (int k = 0; k < samples.length; k++)
+            assertArrayEquals(ann1.feedForward(samples[k]), outputs[k], 1e-12);
+    }
+
+    @Test
+    void givenGraph01_whenAnAxonIsRemoved_thenTheGenesStaySortedByInnovation() {
+        val axon = ann1.edgeSet().stream().toList().get(2);
+        ann1.removeEdge(axon);
+
+        val genes = ann1.getGenes();
+        assertEquals(5, genes.size());
+        assertTrue(genes.indexOf(axon.getInnovation()) < 0);
+        for (int i = 1; i < genes.size(); i++)
+            assertTrue(genes.innovation(i - 1) < genes.innovation(i));
+    }
+
+    @Test
+    void givenGraph01_whenLookingUpAnInnovation_thenTheMatchingAxonIsReturned() {
+        for (val axon : ann1.edgeSet())
+            assertSame(axon, ann1.getEdge(axon.getInnovation()));
+
+        assertThrows(IllegalArgumentException.class, () -> ann1.getEdge(-42));
+    }
+
     @Test
     void givenGraph01_whenCopied_thenReturnedValueIsNotTheSameInstance() {
         val ann1Copy = ann1.copy();
@@ -78,6 +128,44 @@ class AdvancedNeuralNetworkTest {
         assertGraphEquals(ann1, ann1Copy);
     }
 
+    @Test
+    void givenGraph01_whenEvaluatedFromSeveralThreads_thenEveryThreadGetsItsOwnResults() throws Exception {
+        val threads = 8;
+        val iterations = 10_000;
+        val pool = Executors.newFixedThreadPool(threads);
+        try {
+            val tasks = new ArrayList<Callable<Boolean>>();
+            for (int t = 0; t < threads; t++) {
+                val input = t;
+                tasks.add(() -> {
+                    val expected = ann1.feedForward(new double[]{input, -input});
+                    val outputs = new double[expected.length];
+                    for (int i = 0; i < iterations; i++) {
+                        ann1.feedForward(new double[]{input, -input}, outputs);
+                        if (!Arrays.equals(expected, outputs))
+                            return false;
+                    }
+                    return true;
+                });
+            }
+
+            for (val result : pool.invokeAll(tasks))
+                assertTrue(result.get());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void givenABatchAboveTheRetainedScratch_whenAskingForScratch_thenTheThreadBufferIsNotGrownToIt() {
+        val retained = CompiledNeuralNetwork.scratch(CompiledNeuralNetwork.MAX_RETAINED_SCRATCH);
+        val large = CompiledNeuralNetwork.scratch(CompiledNeuralNetwork.MAX_RETAINED_SCRATCH + 1);
+
+        assertEquals(CompiledNeuralNetwork.MAX_RETAINED_SCRATCH + 1, large.length);
+        assertNotSame(large, CompiledNeuralNetwork.scratch(CompiledNeuralNetwork.MAX_RETAINED_SCRATCH + 1));
+        assertSame(retained, CompiledNeuralNetwork.scratch(CompiledNeuralNetwork.MAX_RETAINED_SCRATCH));
+    }
+
     private <V, E> void assertGraphEquals(Graph<V, E> expected, Graph<V, E> actual) {
         assertEquals(expected.vertexSet(), actual.vertexSet());
         assertEquals(expected.edgeSet(), actual.edgeSet());
@@ -0,0 +1,65 @@
+package be.floshie.neat.ai.graph;
+
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InnovationRegistryTest {
+    @Test
+    void givenTheSameConnection_whenRegisteredTwiceInAGeneration_thenItGetsTheSameInnovation() {
+        val registry = new InnovationRegistry();
+
+        val first = registry.innovationFor(1, 4);
+        val other = registry.innovationFor(4, 1);
+        val second = registry.innovationFor(1, 4);
+
+        assertEquals(first, second);
+        assertNotEquals(first, other);
+    }
+
+    @Test
+    void givenTheSameConnection_whenRegisteredInTheNextGeneration_thenItGetsANewInnovation() {
+        val registry = new InnovationRegistry();
+
+        val first = registry.innovationFor(1, 4);
+        registry.nextGeneration();
+        val second = registry.innovationFor(1, 4);
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void givenManyThreads_whenSplittingTheSameAxon_thenTheyAllGetTheSameNeuron() {
+        val registry = new InnovationRegistry();
+        registry.reserveNeuronIds(10);
+
+        val ids = IntStream.range(0, 10_000)
+            .parallel()
+            .map(i -> registry.neuronFor(i % 7))
+            .distinct()
+            .count();
+
+        assertEquals(7, ids);
+        assertEquals(17, registry.nextNeuronId());
+    }
+
+    @Test
+    void givenPartitionedRegistries_whenHandingOutNumbers_thenTheyNeverCollide() {
+        val first = new InnovationRegistry();
+        val second = new InnovationRegistry();
+        first.reserveNeuronIds(5);
+        second.reserveNeuronIds(5);
+        first.partition(0, 2);
+        second.partition(1, 2);
+
+        for (int i = 0; i < 100; i++) {
+            assertEquals(0, first.innovationFor(i, i + 1) % 2);
+            assertEquals(1, second.innovationFor(i, i + 1) % 2);
+            assertEquals(0, first.nextNeuronId() % 2);
+            assertEquals(1, second.nextNeuronId() % 2);
+        }
+    }
+}
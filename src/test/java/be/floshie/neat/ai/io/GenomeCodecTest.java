@@ -0,0 +1,110 @@
+package be.floshie.neat.ai.io;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.mutations.AxonConnectivityMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.inference.NetworkLoader;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenomeCodecTest {
+    private static final double[] INPUTS = {0, 0, 0, 1, 1, 0, 1, 1};
+
+    private static List<AdvancedNeuralNetwork> population() {
+        val random = new SplittableRandom(3);
+        val mutation = new MutationPipeline(
+            new AxonConnectivityMutation(.3),
+            new NeuronMutation(.8),
+            new WeightMutation(.8, .5, -.5)
+        );
+
+        return List.range(0, 10).map(i -> {
+            var individual = new Individual(AdvancedNeuralNetwork.minimal(2, 1, random.split()));
+            for (int k = 0; k < 5; k++)
+                individual = mutation.mutate(individual, random);
+            return individual.getAdvancedNeuralNetwork();
+        });
+    }
+
+    private static byte[] write(List<AdvancedNeuralNetwork> networks) throws IOException {
+        val bytes = new ByteArrayOutputStream();
+        try (GenomeWriter writer = new GenomeWriter(bytes)) {
+            writer.writeAll(networks);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Test
+    void givenAPopulation_whenWritingAndReadingIt_thenTheGenomesAreTheSame() throws IOException {
+        val population = population();
+
+        try (GenomeReader reader = new GenomeReader(new ByteArrayInputStream(write(population)))) {
+            val read = reader.readAll();
+
+            assertEquals(
+                population.map(AdvancedNeuralNetwork::getSignature),
+                read.map(AdvancedNeuralNetwork::getSignature)
+            );
+            assertFalse(reader.hasNext());
+        }
+    }
+
+    @Test
+    void givenAPopulation_whenReadingItCompiled_thenTheOutputsAreTheSame() throws IOException {
+        val population = population();
+
+        try (GenomeReader reader = new GenomeReader(new ByteArrayInputStream(write(population)))) {
+            for (val network : population) {
+                val compiled = reader.nextCompiled(2);
+                val outputs = new double[4];
+                compiled.evaluateBatch(INPUTS, 4, outputs);
+
+                assertArrayEquals(network.feedForwardBatch(INPUTS, 4), outputs, 0);
+            }
+        }
+    }
+
+    @Test
+    void givenAPopulation_whenLoadingItInTheInferenceRuntime_thenTheOutputsAreTheSame() throws IOException {
+        val population = population();
+        val frozen = NetworkLoader.load(ByteBuffer.wrap(write(population)), 2);
+
+        assertEquals(population.size(), frozen.size());
+        for (int i = 0; i < population.size(); i++) {
+            val outputs = new double[4];
+            frozen.get(i).evaluateBatch(INPUTS, 4, outputs);
+
+            assertArrayEquals(population.get(i).feedForwardBatch(INPUTS, 4), outputs, 0);
+        }
+    }
+
+    @Test
+    void givenAStreamOfGenomes_whenSkippingAGenome_thenTheNextOneIsRead() throws IOException {
+        val population = population();
+
+        try (GenomeReader reader = new GenomeReader(new ByteArrayInputStream(write(population)))) {
+            reader.skip();
+
+            assertEquals(population.get(1).getSignature(), reader.next().getSignature());
+        }
+    }
+
+    @Test
+    void givenAnUnknownHeader_whenOpeningAReader_thenItFails() {
+        val bytes = new byte[]{0, 0, 0, 0, 0, 1};
+
+        assertThrows(IOException.class, () -> new GenomeReader(new ByteArrayInputStream(bytes)));
+    }
+}
@@ -0,0 +1,134 @@
+package be.floshie.neat.checkpoint;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.GenomeSignature;
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ai.io.GenomeCodec;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.crossover.BasicCrossover;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.mutations.AxonMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.ga.reproduction.Reproduction;
+import be.floshie.neat.ga.selection.TournamentSelection;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.ga.termination.RunProgress;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CheckpointCodecTest {
+    private static final long SEED = 11;
+
+    private final MutationPipeline mutation = new MutationPipeline(
+        new AxonMutation(.3, .5, -.5),
+        new NeuronMutation(.3),
+        new WeightMutation(.8, .5, -.5)
+    );
+
+    @Test
+    void givenAnEvolvedPopulation_whenWritingAndReadingACheckpoint_thenTheStateIsTheSame(@TempDir Path directory)
+        throws Exception {
+        val checkpoint = evolve();
+        val file = directory.resolve("checkpoint.neat");
+
+        CheckpointCodec.write(checkpoint, file);
+        val read = CheckpointCodec.read(file);
+
+        assertEquals(checkpoint.getSeed(), read.getSeed());
+        assertEquals(checkpoint.getGeneration(), read.getGeneration());
+        assertEquals(checkpoint.getRacingThreshold(), read.getRacingThreshold());
+        assertEquals(checkpoint.getProgress(), read.getProgress());
+        assertEquals(signatures(checkpoint.getPopulation()), signatures(read.getPopulation()));
+        assertEquals(checkpoint.getRegistry(), read.getRegistry());
+
+        val species = checkpoint.getSpeciation().getSpecies();
+        val readSpecies = read.getSpeciation().getSpecies();
+        assertEquals(checkpoint.getSpeciation().getNextSpeciesId(), read.getSpeciation().getNextSpeciesId());
+        assertEquals(species.map(it -> it.getId()), readSpecies.map(it -> it.getId()));
+        assertEquals(
+            species.map(it -> it.getRepresentative().getAdvancedNeuralNetwork().getSignature()),
+            readSpecies.map(it -> it.getRepresentative().getAdvancedNeuralNetwork().getSignature())
+        );
+    }
+
+    @Test
+    void givenACheckpoint_whenResuming_thenTheNextGenerationIsTheSame(@TempDir Path directory) throws Exception {
+        val checkpoint = evolve();
+        val file = directory.resolve("checkpoint.neat");
+        CheckpointCodec.write(checkpoint, file);
+        val read = CheckpointCodec.read(file);
+
+        assertEquals(signatures(nextGeneration(checkpoint)), signatures(nextGeneration(read)));
+    }
+
+    @Test
+    void givenACheckpointOfAnotherGenomeVersion_whenReading_thenItIsRejected() throws Exception {
+        val bytes = new ByteArrayOutputStream();
+        CheckpointCodec.write(evolve(), new DataOutputStream(bytes));
+        val buffer = ByteBuffer.wrap(bytes.toByteArray());
+        buffer.putShort(6, (short) (GenomeCodec.VERSION + 1));
+
+        assertThrows(IOException.class, () -> CheckpointCodec.read(buffer));
+    }
+
+    /**
+     * Evolve a small population for a few generations, ranked by genome size
+     */
+    private Checkpoint evolve() {
+        val registry = InnovationRegistry.global();
+        registry.reset();
+
+        val random = new SplittableRandom(SEED);
+        List<Individual> individuals = List.range(0, 20)
+            .map(i -> new Individual(AdvancedNeuralNetwork.minimal(2, 1, random.split())));
+        val speciation = new SpeciationAlgorithm(1, 1, .4, 1.25);
+
+        int generation = 0;
+        for (; generation < 3; generation++) {
+            val fitnesses = fitnesses(individuals, speciation);
+            individuals = breed(fitnesses, generation).prepend(fitnesses.getBest());
+            registry.nextGeneration();
+        }
+
+        val progress = new RunProgress.Snapshot(generation - 1, 60, 12.5, 42, 1, 3_000_000_000L);
+        return new Checkpoint(SEED, generation, .75, progress, individuals, registry.snapshot(), speciation.snapshot());
+    }
+
+    private List<Individual> nextGeneration(Checkpoint checkpoint) {
+        InnovationRegistry.global().restore(checkpoint.getRegistry());
+        val speciation = new SpeciationAlgorithm(1, 1, .4, 1.25);
+        speciation.restore(checkpoint.getSpeciation());
+
+        return breed(fitnesses(checkpoint.getPopulation(), speciation), checkpoint.getGeneration());
+    }
+
+    private List<Individual> breed(FitnessTable fitnesses, int generation) {
+        val crossover = new BasicCrossover(.5, new TournamentSelection(3));
+        try (Reproduction reproduction = Reproduction.of(crossover, mutation, 1)) {
+            return reproduction.breed(fitnesses, 19, Reproduction.randomFor(SEED, generation));
+        }
+    }
+
+    private static FitnessTable fitnesses(List<Individual> individuals, SpeciationAlgorithm speciation) {
+        val raw = individuals.toLinkedMap(it -> it, it -> (double) it.getAdvancedNeuralNetwork().getGenes().size());
+        val shared = speciation.adjustFitness(raw);
+        return FitnessTable.of(individuals, shared);
+    }
+
+    private static List<GenomeSignature> signatures(List<Individual> individuals) {
+        return individuals.map(it -> it.getAdvancedNeuralNetwork().getSignature());
+    }
+}
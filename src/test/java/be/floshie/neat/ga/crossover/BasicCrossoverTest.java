@@ -0,0 +1,35 @@
+package be.floshie.neat.ga.crossover;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BasicCrossoverTest {
+    @Test
+    void givenTwoParents_whenCrossingOver_thenTheOffspringKeepsThePickedParentWeights() {
+        val network1 = AdvancedNeuralNetwork.minimal(2, 1);
+        val network2 = network1.copy();
+        network2.edgeSet().forEach(axon -> network2.setEdgeWeight(axon, 0.25));
+
+        val parent1 = new Individual(network1);
+        val parent2 = new Individual(network2);
+        val fitnesses = FitnessTable.of(List.of(parent1, parent2), HashMap.of(parent1, 1.0, parent2, 0.5));
+
+        val parents = List.of(parent1, parent2).iterator();
+        val crossover = new BasicCrossover(1, (table, random) -> parents.next());
+
+        val offspring = crossover.crossover(fitnesses, new SplittableRandom(0)).getAdvancedNeuralNetwork();
+
+        assertEquals(network1.edgeSet(), offspring.edgeSet());
+        for (val axon : offspring.edgeSet())
+            assertEquals(network1.getEdgeWeight(axon), offspring.getEdgeWeight(axon));
+    }
+}
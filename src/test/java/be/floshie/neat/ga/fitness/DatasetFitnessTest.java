@@ -0,0 +1,164 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.dataset.Dataset;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.mutations.AxonConnectivityMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.metrics.Metrics;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatasetFitnessTest {
+    private static final double[][] XOR_INPUTS = {{0, 0}, {0, 1}, {1, 0}, {1, 1}};
+    private static final double[][] XOR_OUTPUTS = {{0}, {1}, {1}, {0}};
+
+    private static DatasetFitness fitness(Dataset dataset, Loss loss, int chunkSize) {
+        return new DatasetFitness(
+            dataset,
+            loss,
+            chunkSize,
+            new SpeciationAlgorithm(1.0, 1.0, 0.4, 1.25),
+            FitnessEvaluator.sequential(),
+            FitnessCache.disabled(),
+            new Metrics()
+        );
+    }
+
+    @Test
+    void givenADatasetFile_whenOpeningIt_thenTheSamplesAreReadBack(@TempDir Path directory) throws IOException {
+        val file = directory.resolve("xor.dataset");
+        Dataset.write(file, XOR_INPUTS, XOR_OUTPUTS);
+
+        val dataset = Dataset.open(file);
+
+        assertEquals(2, dataset.getInputCount());
+        assertEquals(1, dataset.getOutputCount());
+        assertEquals(4, dataset.getSampleCount());
+        for (int k = 0; k < 4; k++) {
+            assertEquals(XOR_INPUTS[k][0], dataset.input(k, 0));
+            assertEquals(XOR_INPUTS[k][1], dataset.input(k, 1));
+            assertEquals(XOR_OUTPUTS[k][0], dataset.expected(k, 0));
+        }
+
+        val inputs = new double[4];
+        val expected = new double[2];
+        dataset.read(1, 2, inputs, expected);
+        assertArrayEquals(new double[]{0, 1, 1, 0}, inputs);
+        assertArrayEquals(new double[]{1, 1}, expected);
+    }
+
+    @Test
+    void givenTheXORDataset_whenEvaluatingInChunks_thenTheFitnessIsTheXORFitness(@TempDir Path directory)
+        throws IOException {
+        val file = directory.resolve("xor.dataset");
+        Dataset.write(file, XOR_INPUTS, XOR_OUTPUTS);
+        val speciation = new SpeciationAlgorithm(1.0, 1.0, 0.4, 1.25);
+        val xorFitness = new XORFitness(speciation);
+        val datasetFitness = fitness(Dataset.open(file), StandardLoss.MEAN_SQUARED_ERROR, 3);
+
+        val random = new SplittableRandom(7);
+        val mutation = new MutationPipeline(
+            new AxonConnectivityMutation(.3),
+            new NeuronMutation(.8),
+            new WeightMutation(.8, .5, -.5)
+        );
+        for (int i = 0; i < 20; i++) {
+            var individual = new Individual(AdvancedNeuralNetwork.minimal(2, 1, random.split()));
+            for (int k = 0; k < 5; k++)
+                individual = mutation.mutate(individual, random);
+
+            assertEquals(xorFitness.getRawFitness(individual), datasetFitness.getRawFitness(individual), 1e-12);
+        }
+    }
+
+    @Test
+    void givenPerfectPredictions_whenComputingTheCrossEntropy_thenTheLossIsNearlyZero() {
+        val expected = new double[]{0, 1, 1, 0};
+
+        assertEquals(0, StandardLoss.CROSS_ENTROPY.sum(expected, expected, 4), 1e-9);
+        assertEquals(
+            -4 * Math.log(.5),
+            StandardLoss.CROSS_ENTROPY.sum(new double[]{.5, .5, .5, .5}, expected, 4),
+            1e-12
+        );
+    }
+
+    @Test
+    void givenANetworkWithTheWrongOutputCount_whenEvaluating_thenItFails() {
+        val dataset = Dataset.of(XOR_INPUTS, new double[][]{{0, 0}, {1, 0}, {1, 0}, {0, 0}});
+        val individual = new Individual(AdvancedNeuralNetwork.minimal(2, 1));
+
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> fitness(dataset, StandardLoss.MEAN_SQUARED_ERROR, 16).getRawFitness(individual)
+        );
+    }
+
+    @Test
+    void givenARacingThreshold_whenAnIndividualCannotReachIt_thenItsEvaluationIsCutOff() {
+        val inputs = new double[100][];
+        val outputs = new double[100][];
+        for (int k = 0; k < 100; k++) {
+            inputs[k] = new double[]{1};
+            outputs[k] = new double[]{0};
+        }
+        val dataset = Dataset.of(inputs, outputs);
+
+        // Outputs 0.5 everywhere, a squared error of 0.25 per sample
+        val good = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+        good.getAdvancedNeuralNetwork().edgeSet()
+            .forEach(axon -> good.getAdvancedNeuralNetwork().setEdgeWeight(axon, 0));
+        // Outputs almost 1 everywhere, a squared error of almost 1 per sample
+        val bad = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+        bad.getAdvancedNeuralNetwork().edgeSet()
+            .forEach(axon -> bad.getAdvancedNeuralNetwork().setEdgeWeight(axon, 5));
+
+        val metrics = new Metrics();
+        val racing = new Racing(1);
+        val fitness = new DatasetFitness(
+            dataset,
+            StandardLoss.MEAN_SQUARED_ERROR,
+            10,
+            racing,
+            new SpeciationAlgorithm(1.0, 1.0, 0.4, 1.25),
+            FitnessEvaluator.sequential(),
+            new FitnessCache(100),
+            metrics
+        );
+        val population = List.of(good, bad);
+        val exactBad = fitness(dataset, StandardLoss.MEAN_SQUARED_ERROR, 10).getRawFitness(bad);
+
+        metrics.beginGeneration(0);
+        fitness.getFitnesses(List.of(good));
+        val first = metrics.endGeneration(List.of(good), 1, 0);
+        assertEquals(0, first.getCutOffEvaluations());
+        assertEquals(0.8, racing.getThreshold(), 1e-12);
+
+        metrics.beginGeneration(1);
+        fitness.getFitnesses(population);
+        fitness.getFitnesses(population);
+        val second = metrics.endGeneration(population, 1, 0);
+
+        // The good individual is cached, the cut off one is evaluated again
+        assertEquals(2, second.getEvaluations());
+        assertEquals(2, second.getCutOffEvaluations());
+        assertEquals(2 * 0.7, second.getSavedEvaluations(), 1e-9);
+
+        val raced = fitness.getRawFitness(bad);
+        assertEquals(0.8, fitness.getRawFitness(good), 1e-12);
+        assertTrue(raced < racing.getThreshold());
+        assertTrue(raced >= exactBad);
+    }
+}
@@ -0,0 +1,51 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FitnessCacheTest {
+    @Test
+    void givenTwoIdenticalGenomes_whenGettingTheirFitness_thenItIsComputedOnce() {
+        val network = AdvancedNeuralNetwork.minimal(2, 1);
+        val individual = new Individual(network);
+        val copy = new Individual(network.copy());
+
+        val cache = new FitnessCache(100);
+        val calls = new AtomicInteger();
+
+        cache.get(individual, it -> calls.incrementAndGet());
+        val fitness = cache.get(copy, it -> calls.incrementAndGet());
+
+        assertEquals(1, calls.get());
+        assertEquals(1.0, fitness);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+    }
+
+    @Test
+    void givenAFullCache_whenAddingGenomes_thenItStaysBounded() {
+        val cache = new FitnessCache(16);
+
+        for (int i = 0; i < 1000; i++)
+            cache.get(new Individual(AdvancedNeuralNetwork.minimal(2, 1)), it -> 0.5);
+
+        assertTrue(cache.size() <= 16);
+        assertEquals(1000 - cache.size(), cache.getEvictions());
+    }
+
+    @Test
+    void givenASizeNotMultipleOfTheSegments_whenFillingTheCache_thenItNeverHoldsMoreThanTheSize() {
+        val cache = new FitnessCache(20);
+
+        for (int i = 0; i < 1000; i++)
+            cache.get(new Individual(AdvancedNeuralNetwork.minimal(2, 1)), it -> 0.5);
+
+        assertTrue(cache.size() <= 20);
+    }
+}
@@ -0,0 +1,35 @@
+package be.floshie.neat.ga.fitness;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FitnessTableTest {
+    private final Individual i1 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+    private final Individual i2 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+    private final Individual i3 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+
+    @Test
+    void givenAGeneration_whenLookingUpFitnesses_thenTheyFollowThePopulationOrder() {
+        val table = FitnessTable.of(List.of(i1, i2, i3), HashMap.of(i1, .2, i2, .7, i3, .5));
+
+        assertEquals(.2, table.getFitness(0));
+        assertEquals(.7, table.getFitness(1));
+        assertEquals(.5, table.getFitnessOf(i3));
+        assertSame(i2, table.getBest());
+    }
+
+    @Test
+    void givenAnInvalidatedTable_whenLookingUpAFitness_thenItFails() {
+        val table = FitnessTable.of(List.of(i1, i2), HashMap.of(i1, .2, i2, .7));
+        table.invalidate();
+
+        assertFalse(table.isValid());
+        assertThrows(IllegalStateException.class, () -> table.getFitnessOf(i1));
+    }
+}
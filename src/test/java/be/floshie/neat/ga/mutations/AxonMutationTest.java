@@ -9,6 +9,8 @@ import lombok.val;
 import org.jgrapht.graph.DirectedAcyclicGraph;
 import org.junit.jupiter.api.Test;
 
+import java.util.SplittableRandom;
+
 import static org.junit.jupiter.api.Assertions.*;
 
 class AxonMutationTest {
@@ -63,4 +65,28 @@ class AxonMutationTest {
         assertEquals(1, edgeSetDifference.size());
         assertTrue(valid);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenANetworkWithASingleFreePair_whenMutatingAxon_thenThePairIsConnected() {
+        val neuralNetwork = AdvancedNeuralNetwork.empty();
+        val neurons = new Neuron[6];
+        for (int i = 0; i < neurons.length; i++)
+            neurons[i] = neuralNetwork.addNeuron(ActivationFunction.LINEAR);
+
+        for (int i = 0; i < neurons.length; i++)
+            for (int j = i + 1; j < neurons.length; j++)
+                if (i != 1 || j != 4)
+                    neuralNetwork.addAxon(neurons[i], neurons[j], 1);
+
+        val axonMutation = new AxonMutation(1, 0, 1);
+
+        for (int seed = 0; seed < 20; seed++) {
+            val mutatedNeuralNetwork = axonMutation
+                .mutate(new Individual(neuralNetwork), new SplittableRandom(seed))
+                .getAdvancedNeuralNetwork();
+
+            assertEquals(neuralNetwork.edgeSet().size() + 1, mutatedNeuralNetwork.edgeSet().size());
+            assertNotNull(mutatedNeuralNetwork.getEdge(neurons[1], neurons[4]));
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package be.floshie.neat.ga.mutations;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ga.Individual;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MutationPipelineTest {
+    @Test
+    void givenAPipeline_whenEveryMutationIsApplied_thenTheOriginalNetworkIsUntouched() {
+        val network = AdvancedNeuralNetwork.minimal(2, 1);
+        val edges = new HashSet<>(network.edgeSet());
+        val vertices = new HashSet<>(network.vertexSet());
+
+        val pipeline = new MutationPipeline(
+            new NeuronMutation(1),
+            new WeightMutation(1, .5, -.5)
+        );
+        val mutatedNetwork = pipeline
+            .mutate(new Individual(network))
+            .getAdvancedNeuralNetwork();
+
+        assertNotSame(network, mutatedNetwork);
+        assertEquals(edges, network.edgeSet());
+        assertEquals(vertices, network.vertexSet());
+        assertEquals(vertices.size() + 1, mutatedNetwork.vertexSet().size());
+    }
+
+    @Test
+    void givenAPipelineWithoutSelectedMutation_whenMutating_thenTheIndividualIsReturnedAsIs() {
+        val individual = new Individual(AdvancedNeuralNetwork.minimal(2, 1));
+        val pipeline = new MutationPipeline(new NeuronMutation(0), new WeightMutation(0, .5, -.5));
+
+        assertSame(individual, pipeline.mutate(individual));
+    }
+
+    @Test
+    void givenTheSameSeed_whenPreparingAndCompletingLater_thenTheOffspringIsTheSame() {
+        val network = AdvancedNeuralNetwork.minimal(2, 1);
+        val pipeline = new MutationPipeline(
+            new AxonConnectivityMutation(.5),
+            new NeuronMutation(1),
+            new WeightMutation(1, .5, -.5)
+        );
+
+        val first = pipeline
+            .prepare(new Individual(network), new SplittableRandom(42))
+            .complete()
+            .getAdvancedNeuralNetwork();
+        val second = pipeline
+            .prepare(new Individual(network.copy()), new SplittableRandom(42))
+            .complete()
+            .getAdvancedNeuralNetwork();
+
+        assertEquals(first.getSignature(), second.getSignature());
+    }
+
+    @Test
+    void givenAStructuralMutationBeforeAWeightMutation_whenPreparing_thenThePipelineOrderIsKept() {
+        val network = AdvancedNeuralNetwork.minimal(2, 1);
+        val pipeline = new MutationPipeline(new NeuronMutation(1), new WeightMutation(1, .5, -.5));
+        val registry = InnovationRegistry.global();
+        val initialRegistry = registry.snapshot();
+
+        val mutated = pipeline.mutate(new Individual(network), new SplittableRandom(42)).getAdvancedNeuralNetwork();
+        registry.restore(initialRegistry);
+        val prepared = pipeline
+            .prepare(new Individual(network.copy()), new SplittableRandom(42))
+            .complete()
+            .getAdvancedNeuralNetwork();
+        registry.restore(initialRegistry);
+
+        val inputs = new double[] { .25, .75 };
+        assertArrayEquals(mutated.feedForward(inputs), prepared.feedForward(inputs));
+    }
+}
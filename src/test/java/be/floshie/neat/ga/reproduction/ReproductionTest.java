@@ -0,0 +1,54 @@
+package be.floshie.neat.ga.reproduction;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.graph.InnovationRegistry;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.crossover.BasicCrossover;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import be.floshie.neat.ga.mutations.AxonConnectivityMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.ga.selection.TournamentSelection;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReproductionTest {
+    @Test
+    void givenTheSameSeed_whenBreedingWithDifferentThreadCounts_thenTheOffspringAreTheSame() {
+        val random = new SplittableRandom(7);
+        val individuals = List.range(0, 20)
+            .map(i -> new Individual(AdvancedNeuralNetwork.minimal(2, 1, random.split())));
+        val fitnesses = FitnessTable.of(individuals, individuals.zipWithIndex().toMap(t -> t._1(), t -> (double) t._2()));
+
+        val crossover = new BasicCrossover(.5, new TournamentSelection(3));
+        val mutation = new MutationPipeline(
+            new AxonConnectivityMutation(.2),
+            new NeuronMutation(.5),
+            new WeightMutation(.8, .5, -.5)
+        );
+
+        // Both runs start from the same registry, so the parallel one cannot reuse the numbers given to the first one
+        val registry = InnovationRegistry.global();
+        val initialRegistry = registry.snapshot();
+
+        try (Reproduction sequential = Reproduction.of(crossover, mutation, 1);
+             Reproduction parallel = Reproduction.of(crossover, mutation, 4)) {
+            registry.restore(initialRegistry);
+            val expected = sequential.breed(fitnesses, 50, Reproduction.randomFor(7, 0));
+            registry.restore(initialRegistry);
+            val actual = parallel.breed(fitnesses, 50, Reproduction.randomFor(7, 0));
+
+            assertEquals(50, actual.size());
+            assertEquals(
+                expected.map(individual -> individual.getAdvancedNeuralNetwork().getSignature()),
+                actual.map(individual -> individual.getAdvancedNeuralNetwork().getSignature())
+            );
+        }
+    }
+}
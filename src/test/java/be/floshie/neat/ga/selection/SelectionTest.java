@@ -0,0 +1,88 @@
+package be.floshie.neat.ga.selection;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.fitness.FitnessTable;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SelectionTest {
+    private static final int PICKS = 100_000;
+
+    private final Individual i1 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+    private final Individual i2 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+    private final Individual i3 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+    private final Individual i4 = new Individual(AdvancedNeuralNetwork.minimal(1, 1));
+
+    private final FitnessTable fitnesses = FitnessTable.of(
+        List.of(i1, i2, i3, i4),
+        HashMap.of(i1, 0.0, i2, 1.0, i3, 2.0, i4, 5.0)
+    );
+
+    @Test
+    void givenARoulette_whenPicking_thenIndividualsArePickedInProportionToTheirFitness() {
+        val picks = pick(new RouletteSelection());
+
+        assertEquals(0, picks[0]);
+        assertEquals(.125, picks[1] / (double) PICKS, .01);
+        assertEquals(.25, picks[2] / (double) PICKS, .01);
+        assertEquals(.625, picks[3] / (double) PICKS, .01);
+    }
+
+    @Test
+    void givenARankSelection_whenPicking_thenIndividualsArePickedByRank() {
+        // Weights 0, 2/3, 4/3, 2 with a pressure of 2
+        val picks = pick(new RankSelection(2));
+
+        assertEquals(0, picks[0]);
+        assertEquals(1 / 6.0, picks[1] / (double) PICKS, .01);
+        assertEquals(2 / 6.0, picks[2] / (double) PICKS, .01);
+        assertEquals(3 / 6.0, picks[3] / (double) PICKS, .01);
+    }
+
+    @Test
+    void givenStochasticUniversalSampling_whenPickingAGeneration_thenEveryIndividualGetsItsExpectedCountRounded() {
+        // Expected counts 0, .5, 1, 2.5 over 4 picks
+        val individuals = List.of(i1, i2, i3, i4);
+        val random = new SplittableRandom(42);
+        int generationsPickingI2 = 0;
+        for (int seed = 0; seed < 1_000; seed++) {
+            val selection = new StochasticUniversalSampling(seed);
+            val picks = new int[4];
+            for (int pick = 0; pick < 8; pick++)
+                picks[individuals.indexOf(selection.select(fitnesses, pick, random))]++;
+
+            // Two passes over the pool, each one picking every individual exactly as many times as it owns slots
+            assertEquals(0, picks[0]);
+            assertTrue(picks[1] == 0 || picks[1] == 2);
+            assertEquals(2, picks[2]);
+            assertEquals(6 - picks[1], picks[3]);
+            if (picks[1] > 0)
+                generationsPickingI2++;
+        }
+
+        assertEquals(.5, generationsPickingI2 / 1_000.0, .05);
+    }
+
+    @Test
+    void givenATournament_whenEveryoneCompetes_thenTheBestIsMostLikelyPicked() {
+        val picks = pick(new TournamentSelection(20));
+
+        assertTrue(picks[3] > PICKS * .99);
+    }
+
+    private int[] pick(ISelection selection) {
+        val random = new SplittableRandom(42);
+        val picks = new int[4];
+        val individuals = List.of(i1, i2, i3, i4);
+        for (int i = 0; i < PICKS; i++)
+            picks[individuals.indexOf(selection.select(fitnesses, random))]++;
+        return picks;
+    }
+}
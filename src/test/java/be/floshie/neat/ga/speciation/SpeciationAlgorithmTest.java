@@ -4,6 +4,8 @@ import be.floshie.neat.ai.ActivationFunction;
 import be.floshie.neat.ai.AdvancedNeuralNetwork;
 import be.floshie.neat.ai.graph.Axon;
 import be.floshie.neat.ga.Individual;
+import io.vavr.collection.HashMap;
+import io.vavr.collection.List;
 import lombok.val;
 import org.junit.jupiter.api.Test;
 
@@ -68,4 +70,44 @@ class SpeciationAlgorithmTest {
         val speciationAlgorithm = new SpeciationAlgorithm(0.1, 0.2, 0.3, 1);
         assertEquals(0.08, speciationAlgorithm.getDistance(parent1, parent2), 0.01);
     }
-}
\ No newline at end of file
+
+    @Test
+    void givenTwoCloseIndividuals_whenAdjustingFitness_thenTheyShareTheirSpecies() {
+        val parent1 = createParent1();
+        val parent2 = createParent2();
+
+        val speciationAlgorithm = new SpeciationAlgorithm(0.1, 0.2, 0.3, 1);
+        val adjusted = speciationAlgorithm.adjustFitness(HashMap.of(parent1, 1.0, parent2, 0.5));
+
+        assertEquals(1, speciationAlgorithm.getSpeciesCount());
+        assertEquals(0.5, adjusted.get(parent1).get());
+        assertEquals(0.25, adjusted.get(parent2).get());
+    }
+
+    @Test
+    void givenTwoDistantIndividuals_whenSpeciating_thenEachOneHasItsOwnSpecies() {
+        val parent1 = createParent1();
+        val parent2 = createParent2();
+
+        val speciationAlgorithm = new SpeciationAlgorithm(0.1, 0.2, 0.3, 0.05);
+        val species = speciationAlgorithm.speciate(List.of(parent1, parent2));
+
+        assertEquals(2, species.size());
+        assertNotEquals(speciationAlgorithm.getSpecies(parent1).get(), speciationAlgorithm.getSpecies(parent2).get());
+    }
+
+    @Test
+    void givenASpecies_whenItSurvivesGenerations_thenItsAgeAndStagnationAreTracked() {
+        val parent1 = createParent1();
+
+        val speciationAlgorithm = new SpeciationAlgorithm(0.1, 0.2, 0.3, 1);
+        speciationAlgorithm.adjustFitness(HashMap.of(parent1, 1.0));
+        speciationAlgorithm.adjustFitness(HashMap.of(parent1, 0.5));
+        speciationAlgorithm.adjustFitness(HashMap.of(parent1, 0.5));
+
+        val species = speciationAlgorithm.getSpecies().head();
+        assertEquals(3, species.getAge());
+        assertEquals(2, species.getStagnation());
+        assertEquals(1.0, species.getBestFitness());
+    }
+}
@@ -0,0 +1,63 @@
+package be.floshie.neat.ga.steadystate;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import be.floshie.neat.ga.crossover.BasicCrossover;
+import be.floshie.neat.ga.fitness.FitnessCache;
+import be.floshie.neat.ga.fitness.FitnessEvaluator;
+import be.floshie.neat.ga.fitness.XORFitness;
+import be.floshie.neat.ga.mutations.AxonMutation;
+import be.floshie.neat.ga.mutations.MutationPipeline;
+import be.floshie.neat.ga.mutations.NeuronMutation;
+import be.floshie.neat.ga.mutations.WeightMutation;
+import be.floshie.neat.ga.selection.TournamentSelection;
+import be.floshie.neat.ga.speciation.SpeciationAlgorithm;
+import be.floshie.neat.ga.termination.StopReason;
+import be.floshie.neat.ga.termination.Termination;
+import be.floshie.neat.ga.termination.TerminationCondition;
+import be.floshie.neat.metrics.Metrics;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SteadyStateEvolutionTest {
+    @Test
+    void givenAGenerationLimit_whenEvolvingWithoutGenerations_thenTheRunStopsAfterAsManyRefreshes() throws Exception {
+        val random = new SplittableRandom(13);
+        val initial = List.range(0, 20)
+            .map(i -> new Individual(AdvancedNeuralNetwork.minimal(2, 1, random.split())));
+
+        val metrics = new Metrics();
+        val speciation = new SpeciationAlgorithm(1, 1, .4, 1.25);
+        val fitness = new XORFitness(speciation, FitnessEvaluator.sequential(), FitnessCache.disabled(), metrics);
+        val initialBest = initial.map(fitness::getRawFitness).max().get();
+
+        val termination = new Termination(List.of(TerminationCondition.maxGenerations(5)), 0);
+        try (SteadyStateEvolution evolution = new SteadyStateEvolution(
+            new BasicCrossover(.5, new TournamentSelection(3)),
+            new MutationPipeline(
+                new AxonMutation(.2, .5, -.5),
+                new NeuronMutation(.1),
+                new WeightMutation(.8, .5, -.5)
+            ),
+            fitness::getRawFitness,
+            speciation,
+            metrics,
+            4,
+            10
+        )) {
+            val stopReason = evolution.run(initial, termination, 13);
+
+            assertEquals(StopReason.MAX_GENERATIONS, stopReason);
+            assertEquals(4, termination.getProgress().getGeneration());
+            // The initial population, then 10 insertions per refresh
+            assertTrue(termination.getProgress().getEvaluations() >= 20 + 4 * 10);
+            assertTrue(evolution.getBestFitness() >= initialBest);
+            assertEquals(evolution.getBestFitness(), fitness.getRawFitness(evolution.getBest()));
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package be.floshie.neat.ga.termination;
+
+import be.floshie.neat.metrics.GenerationMetrics;
+import io.vavr.collection.List;
+import io.vavr.control.Option;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TerminationTest {
+    private static GenerationMetrics generation(int generation, double bestFitness, long evaluations) {
+        return GenerationMetrics.builder()
+            .generation(generation)
+            .bestFitness(bestFitness)
+            .evaluations(evaluations)
+            .build();
+    }
+
+    @Test
+    void givenAMaxNumberOfGenerations_whenTheLastGenerationIsEvaluated_thenTheRunStops() {
+        val termination = new Termination(List.of(TerminationCondition.maxGenerations(3)), 0);
+
+        assertEquals(Option.none(), termination.update(generation(0, .1, 10)));
+        assertEquals(Option.none(), termination.update(generation(1, .1, 10)));
+        assertEquals(Option.of(StopReason.MAX_GENERATIONS), termination.update(generation(2, .1, 10)));
+    }
+
+    @Test
+    void givenATargetFitness_whenItIsReached_thenTheRunStops() {
+        val termination = new Termination(List.of(TerminationCondition.targetFitness(.9)), 0);
+
+        assertEquals(Option.none(), termination.update(generation(0, .5, 10)));
+        assertEquals(Option.of(StopReason.TARGET_FITNESS), termination.update(generation(1, .95, 10)));
+    }
+
+    @Test
+    void givenAnEvaluationBudget_whenTheEvaluationsAddUpToIt_thenTheRunStops() {
+        val termination = new Termination(List.of(TerminationCondition.evaluationBudget(25)), 0);
+
+        assertEquals(Option.none(), termination.update(generation(0, .1, 10)));
+        assertEquals(Option.none(), termination.update(generation(1, .1, 10)));
+        assertEquals(Option.of(StopReason.EVALUATION_BUDGET), termination.update(generation(2, .1, 10)));
+        assertEquals(30, termination.getProgress().getEvaluations());
+    }
+
+    @Test
+    void givenAStagnationLimit_whenTheBestFitnessStopsImproving_thenTheRunStops() {
+        val termination = new Termination(List.of(TerminationCondition.stagnation(2)), .01);
+
+        assertEquals(Option.none(), termination.update(generation(0, .1, 10)));
+        assertEquals(Option.none(), termination.update(generation(1, .2, 10)));
+        assertEquals(Option.none(), termination.update(generation(2, .205, 10)));
+        assertEquals(Option.of(StopReason.STAGNATION), termination.update(generation(3, .1, 10)));
+    }
+
+    @Test
+    void givenAnExhaustedTimeBudget_whenAGenerationEnds_thenTheRunStops() {
+        val termination = new Termination(List.of(TerminationCondition.timeBudget(Duration.ZERO)), 0);
+
+        assertEquals(Option.of(StopReason.TIME_BUDGET), termination.update(generation(0, .1, 10)));
+    }
+
+    @Test
+    void givenSeveralConditionsMet_whenAGenerationEnds_thenTheFirstConditionGivesTheReason() {
+        val termination = new Termination(
+            List.of(TerminationCondition.targetFitness(.9), TerminationCondition.maxGenerations(1)),
+            0
+        );
+
+        assertEquals(Option.of(StopReason.TARGET_FITNESS), termination.update(generation(0, .95, 10)));
+    }
+
+    @Test
+    void givenARestoredProgress_whenTheRunGoesOn_thenTheLimitsCountFromTheCapturedProgress() {
+        val previous = new Termination(List.of(), .01);
+        previous.update(generation(0, .2, 10));
+        previous.update(generation(1, .2, 10));
+
+        val termination = new Termination(
+            List.of(TerminationCondition.stagnation(2), TerminationCondition.evaluationBudget(100)),
+            .01
+        );
+        termination.getProgress().restore(previous.getProgress().snapshot());
+
+        assertEquals(Option.of(StopReason.STAGNATION), termination.update(generation(2, .2, 10)));
+        assertEquals(30, termination.getProgress().getEvaluations());
+        assertEquals(1, termination.getProgress().getGenerationCount());
+    }
+}
@@ -0,0 +1,76 @@
+package be.floshie.neat.island;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ai.GenomeSignature;
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IslandNodeTest {
+    private static List<Individual> migrants(int count) {
+        val random = new SplittableRandom(5);
+        return List.range(0, count).map(i -> new Individual(AdvancedNeuralNetwork.minimal(2, 1, random.split())));
+    }
+
+    private static List<GenomeSignature> signatures(List<Individual> individuals) {
+        return individuals.map(it -> it.getAdvancedNeuralNetwork().getSignature());
+    }
+
+    @Test
+    void givenFourIslands_whenComputingTheDestinations_thenTheTopologyIsFollowed() {
+        assertEquals(List.of(0), MigrationTopology.RING.destinations(3, 4));
+        assertEquals(List.of(0, 1, 3), MigrationTopology.FULLY_CONNECTED.destinations(2, 4));
+        assertEquals(List.empty(), MigrationTopology.RING.destinations(0, 1));
+    }
+
+    @Test
+    void givenAMigration_whenWritingAndReadingIt_thenTheMigrantsAreTheSame() throws IOException {
+        val migration = new Migration(1, 7, migrants(3));
+        val bytes = new ByteArrayOutputStream();
+        val out = new DataOutputStream(bytes);
+        MigrationCodec.writeHeader(out);
+        MigrationCodec.write(migration, out);
+
+        val in = new DataInputStream(new ByteArrayInputStream(bytes.toByteArray()));
+        MigrationCodec.readHeader(in);
+        val read = MigrationCodec.read(in);
+
+        assertEquals(1, read.getSource());
+        assertEquals(7, read.getGeneration());
+        assertEquals(signatures(migration.getMigrants()), signatures(read.getMigrants()));
+    }
+
+    @Test
+    void givenTwoIslands_whenOneSendsMigrants_thenTheOtherReceivesThem() throws Exception {
+        int basePort;
+        try (ServerSocket probe = new ServerSocket(0)) {
+            basePort = probe.getLocalPort();
+        }
+
+        val migrants = migrants(2);
+        try (IslandNode first = new IslandNode(0, 2, basePort, MigrationTopology.RING);
+             IslandNode second = new IslandNode(1, 2, basePort, MigrationTopology.RING)) {
+            first.send(0, migrants);
+
+            var received = List.<Individual>empty();
+            for (int attempt = 0; attempt < 100 && received.size() < migrants.size(); attempt++) {
+                received = received.appendAll(second.receive());
+                Thread.sleep(20);
+            }
+
+            assertEquals(signatures(migrants), signatures(received));
+            assertEquals(List.empty(), first.receive());
+        }
+    }
+}
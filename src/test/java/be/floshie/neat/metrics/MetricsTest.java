@@ -0,0 +1,64 @@
+package be.floshie.neat.metrics;
+
+import be.floshie.neat.ai.AdvancedNeuralNetwork;
+import be.floshie.neat.ga.Individual;
+import io.vavr.collection.List;
+import lombok.val;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricsTest {
+    @Test
+    void givenAGeneration_whenEndingIt_thenTheCountersAreSnapshotAndReset(@TempDir Path directory) throws Exception {
+        val file = directory.resolve("metrics.csv");
+        val small = AdvancedNeuralNetwork.minimal(1, 1);
+        val large = AdvancedNeuralNetwork.minimal(2, 1);
+        val population = List.of(new Individual(small), new Individual(small), new Individual(large));
+
+        try (Metrics metrics = new Metrics(new CsvMetricsSink(file))) {
+            metrics.beginGeneration(3);
+            metrics.record(Phase.FITNESS, metrics.start() - 1_000);
+            metrics.recordEvaluation();
+            metrics.recordEvaluation();
+            val first = metrics.endGeneration(population, 2, .5);
+
+            metrics.beginGeneration(4);
+            val second = metrics.endGeneration(population, 2, .5);
+
+            assertEquals(3, first.getGeneration());
+            assertEquals(2, first.getEvaluations());
+            assertTrue(first.getFitnessNanos() >= 1_000);
+            assertEquals(2, first.getSpeciesCount());
+            assertEquals(small.getGenes().size(), first.getMinGenomeSize());
+            assertEquals(small.getGenes().size(), first.getMedianGenomeSize());
+            assertEquals(large.getGenes().size(), first.getMaxGenomeSize());
+
+            assertEquals(0, second.getEvaluations());
+            assertEquals(0, second.getFitnessNanos());
+        }
+
+        val lines = Files.readAllLines(file);
+        assertEquals(3, lines.size());
+        assertTrue(lines.get(1).startsWith("3,"));
+    }
+
+    @Test
+    void givenASelectionDuringACrossover_whenEndingTheGeneration_thenTheSelectionIsNotCountedInTheCrossover()
+        throws Exception {
+        try (Metrics metrics = new Metrics()) {
+            metrics.beginGeneration(0);
+            val crossoverStart = metrics.start() - 1_000_000_000;
+            metrics.record(Phase.SELECTION, metrics.start() - 1_000_000_000);
+            metrics.record(Phase.CROSSOVER, crossoverStart);
+            val generation = metrics.endGeneration(List.empty(), 0, 0);
+
+            assertTrue(generation.getSelectionNanos() >= 1_000_000_000);
+            assertTrue(generation.getCrossoverNanos() < 1_000_000_000);
+        }
+    }
+}